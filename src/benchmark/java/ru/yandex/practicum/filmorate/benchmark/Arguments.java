@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Аргументы командной строки утилит: name=value - параметры утилиты,
+//--name=value - свойства Spring, которые передаются запускаемому приложению как есть
+class Arguments {
+    private final Map<String, String> values = new HashMap<>();
+    private final List<String> springArgs = new ArrayList<>();
+
+    Arguments(String[] args) {
+        for (String arg : args) {
+            int pos = arg.indexOf('=');
+            if (arg.startsWith("--")) {
+                springArgs.add(arg);
+            } else if (pos > 0) {
+                values.put(arg.substring(0, pos), arg.substring(pos + 1));
+            } else {
+                throw new IllegalArgumentException("Ожидался аргумент вида name=value: " + arg);
+            }
+        }
+    }
+
+    int intValue(String name, int defaultValue) {
+        return values.containsKey(name) ? Integer.parseInt(values.get(name)) : defaultValue;
+    }
+
+    long longValue(String name, long defaultValue) {
+        return values.containsKey(name) ? Long.parseLong(values.get(name)) : defaultValue;
+    }
+
+    //Свойства по умолчанию и переданные в командной строке. Spring склеивает повторы одного свойства
+    //через запятую, поэтому свойство по умолчанию заменяется переданным с тем же именем
+    String[] springArgs(String... defaults) {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (String arg : defaults) {
+            result.put(arg.substring(0, arg.indexOf('=')), arg);
+        }
+        for (String arg : springArgs) {
+            int pos = arg.indexOf('=');
+            result.put(pos > 0 ? arg.substring(0, pos) : arg, arg);
+        }
+        return result.values().toArray(String[]::new);
+    }
+}
@@ -0,0 +1,256 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.dal.FilmDbStorage;
+import ru.yandex.practicum.filmorate.dal.UserDbStorage;
+import ru.yandex.practicum.filmorate.dto.FilmRequest;
+import ru.yandex.practicum.filmorate.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+//Набор данных для бенчмарков и нагрузочных прогонов: при одинаковых размерах и зерне получается один и тот же.
+//Лайки и дружба распределены по степенному закону: немногие фильмы и пользователи собирают большую часть
+//лайков и друзей, а число лайков и друзей у пользователя - от нескольких до сотен при заданном среднем.
+//Связи хранятся по номерам фильмов и пользователей в массивах int, id им назначает хранилище при заполнении
+public class BenchmarkData {
+
+    //Показатель закона Ципфа: k-й по популярности фильм или пользователь выбирается с весом 1 / k^SKEW
+    private static final double SKEW = 1.0;
+    //Показатель распределения Парето для числа лайков и друзей пользователя, среднее = min * ALPHA / (ALPHA - 1)
+    private static final double ALPHA = 2.0;
+    //Сколько строк уходит в базу одним пакетом
+    private static final int CHUNK = 10_000;
+    private static final int RATINGS = 5;
+    private static final LocalDate FIRST_RELEASE = LocalDate.of(1950, 1, 1);
+
+    private final int films;
+    private final int users;
+    private final long seed;
+    //Пары (номер фильма, номер пользователя) и (номер пользователя, номер друга)
+    private final Pairs likes = new Pairs();
+    private final Pairs friendships = new Pairs();
+
+    public BenchmarkData(int films, int users, int likesPerUser, int friendsPerUser, long seed) {
+        this.films = films;
+        this.users = users;
+        this.seed = seed;
+        Random random = new Random(seed);
+        ZipfSampler filmPopularity = new ZipfSampler(films, random);
+        ZipfSampler userPopularity = new ZipfSampler(users, random);
+        for (int user = 0; user < users; user++) {
+            for (int film : distinct(filmPopularity, activity(random, likesPerUser, films), -1)) {
+                likes.add(film, user);
+            }
+            for (int friend : distinct(userPopularity, activity(random, friendsPerUser, users - 1), user)) {
+                friendships.add(user, friend);
+            }
+        }
+    }
+
+    public int likeCount() {
+        return likes.size;
+    }
+
+    public int friendshipCount() {
+        return friendships.size;
+    }
+
+    //Заполняет базу приложения: фильмы и пользователи - пакетными методами хранилищ,
+    //лайки и дружба - пакетными вставками, после чего индексы в памяти перечитываются из таблиц
+    public Ids fillDatabase(ApplicationContext context) {
+        FilmDbStorage filmStorage = context.getBean(FilmDbStorage.class);
+        UserDbStorage userStorage = context.getBean(UserDbStorage.class);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+
+        List<FilmRequest> requests = filmRequests();
+        long[] filmIds = new long[films];
+        for (int from = 0; from < films; from += CHUNK) {
+            List<Film> added = filmStorage.addNewFilms(requests.subList(from, Math.min(from + CHUNK, films)));
+            for (int i = 0; i < added.size(); i++) {
+                filmIds[from + i] = added.get(i).getId();
+            }
+        }
+        List<User> newUsers = newUsers("user", users);
+        long[] userIds = new long[users];
+        for (int from = 0; from < users; from += CHUNK) {
+            List<User> added = userStorage.createUsers(newUsers.subList(from, Math.min(from + CHUNK, users)));
+            for (int i = 0; i < added.size(); i++) {
+                userIds[from + i] = added.get(i).getId();
+            }
+        }
+        insertPairs(jdbc, "INSERT INTO likes (film_id, user_id) VALUES (?, ?)", likes, filmIds, userIds);
+        insertPairs(jdbc, "INSERT INTO friends (user1_id, user2_id) VALUES (?, ?)", friendships, userIds, userIds);
+        jdbc.update("UPDATE film f SET like_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id)");
+        filmStorage.loadLikeIndex();
+        filmStorage.loadTrendingIndex();
+        userStorage.loadFriendGraph();
+        return new Ids(filmIds, userIds);
+    }
+
+    //Заполняет хранилища в памяти, id фильмов и пользователей - их номера плюс один
+    public Ids fillInMemory(InMemoryUserStorage userStorage, InMemoryFilmStorage filmStorage) {
+        List<User> newUsers = newUsers("user", users);
+        List<FilmRequest> requests = filmRequests();
+        List<Film> newFilms = new ArrayList<>(films);
+        for (int i = 0; i < users; i++) {
+            newUsers.get(i).setId(i + 1L);
+        }
+        for (int i = 0; i < films; i++) {
+            Film film = FilmMapper.mapToFilm(requests.get(i));
+            film.setId(i + 1L);
+            newFilms.add(film);
+        }
+        for (int i = 0; i < friendships.size; i++) {
+            newUsers.get(friendships.first[i]).getFriends().add(friendships.second[i] + 1L);
+        }
+        for (int i = 0; i < likes.size; i++) {
+            newFilms.get(likes.first[i]).getUsersLikes().add(likes.second[i] + 1L);
+        }
+        userStorage.loadUsers(newUsers);
+        filmStorage.loadFilms(newFilms);
+        return new Ids(newFilms.stream().mapToLong(Film::getId).toArray(),
+                newUsers.stream().mapToLong(User::getId).toArray());
+    }
+
+    //Пользователи с e-mail и логином вида prefix + номер, без id
+    public static List<User> newUsers(String prefix, int count) {
+        List<User> newUsers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            newUsers.add(new User(prefix + i + "@bench.ru", prefix + i, "User " + i,
+                    LocalDate.of(1990, 1, 1).plusDays(i % 10_000)));
+        }
+        return newUsers;
+    }
+
+    private List<FilmRequest> filmRequests() {
+        Random random = new Random(seed);
+        List<FilmRequest> requests = new ArrayList<>(films);
+        for (int i = 0; i < films; i++) {
+            requests.add(new FilmRequest("Film " + i, "Description of film " + i,
+                    FIRST_RELEASE.plusDays(random.nextInt(25_000)), 60L + random.nextInt(120),
+                    new Rating(1L + random.nextInt(RATINGS))));
+        }
+        return requests;
+    }
+
+    private static void insertPairs(JdbcTemplate jdbc, String query, Pairs pairs, long[] firstIds, long[] secondIds) {
+        for (int from = 0; from < pairs.size; from += CHUNK) {
+            int start = from;
+            int size = Math.min(CHUNK, pairs.size - from);
+            jdbc.batchUpdate(query, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int row) throws SQLException {
+                    ps.setLong(1, firstIds[pairs.first[start + row]]);
+                    ps.setLong(2, secondIds[pairs.second[start + row]]);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+    }
+
+    //Число лайков или друзей пользователя по Парето с заданным средним, не больше max
+    private static int activity(Random random, int mean, int max) {
+        if (mean <= 0 || max <= 0) {
+            return 0;
+        }
+        double min = mean * (ALPHA - 1) / ALPHA;
+        double value = min / Math.pow(1 - random.nextDouble(), 1 / ALPHA);
+        return (int) Math.min(Math.round(value), max);
+    }
+
+    //count разных номеров из sampler без excluded. Когда нужна большая часть номеров,
+    //выборка по весам заменяется равномерной, иначе редкие номера пришлось бы ждать долго
+    private static Set<Integer> distinct(ZipfSampler sampler, int count, int excluded) {
+        Set<Integer> result = new HashSet<>();
+        boolean uniform = count > sampler.size() / 2;
+        while (result.size() < count) {
+            int next = uniform ? sampler.uniform() : sampler.next();
+            if (next != excluded) {
+                result.add(next);
+            }
+        }
+        return result;
+    }
+
+    //Id фильмов и пользователей в порядке их номеров
+    public record Ids(long[] films, long[] users) {
+    }
+
+    //Выбор номера из [0, size) по закону Ципфа: накопленные веса ищутся двоичным поиском.
+    //Ранги популярности перемешаны, чтобы популярность не совпадала с порядком id
+    private static class ZipfSampler {
+        private final double[] cumulative;
+        private final int[] byRank;
+        private final Random random;
+
+        ZipfSampler(int size, Random random) {
+            this.random = random;
+            cumulative = new double[size];
+            double sum = 0;
+            for (int rank = 0; rank < size; rank++) {
+                sum += 1 / Math.pow(rank + 1, SKEW);
+                cumulative[rank] = sum;
+            }
+            byRank = new int[size];
+            for (int i = 0; i < size; i++) {
+                byRank[i] = i;
+            }
+            for (int i = size - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = byRank[i];
+                byRank[i] = byRank[j];
+                byRank[j] = swap;
+            }
+        }
+
+        int size() {
+            return byRank.length;
+        }
+
+        int next() {
+            double point = random.nextDouble() * cumulative[cumulative.length - 1];
+            int rank = Arrays.binarySearch(cumulative, point);
+            return byRank[Math.min(rank < 0 ? -rank - 1 : rank, byRank.length - 1)];
+        }
+
+        int uniform() {
+            return random.nextInt(byRank.length);
+        }
+    }
+
+    //Растущие массивы пар номеров, без объекта на каждую пару
+    private static class Pairs {
+        private int[] first = new int[1024];
+        private int[] second = new int[1024];
+        private int size;
+
+        void add(int a, int b) {
+            if (size == first.length) {
+                first = Arrays.copyOf(first, size * 2);
+                second = Arrays.copyOf(second, size * 2);
+            }
+            first[size] = a;
+            second[size] = b;
+            size++;
+        }
+    }
+}
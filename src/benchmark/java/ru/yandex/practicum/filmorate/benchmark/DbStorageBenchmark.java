@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.dal.FilmDbStorage;
+import ru.yandex.practicum.filmorate.dal.UserDbStorage;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Горячие пути хранилищ БД и сервиса фильмов на сгенерированных данных.
+//Приложение поднимается без веб-сервера с базой H2 в памяти, схема создается миграциями
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DbStorageBenchmark {
+
+    //Сколько пользователей без лайков заводится для бенчмарка добавления лайков
+    private static final int LIKERS = 1_000;
+
+    @Param("10000")
+    private int films;
+    @Param("10000")
+    private int users;
+    @Param("20")
+    private int likesPerUser;
+    @Param("20")
+    private int friendsPerUser;
+    @Param("42")
+    private long seed;
+
+    private ConfigurableApplicationContext context;
+    private FilmDbStorage filmStorage;
+    private UserDbStorage userStorage;
+    private FilmService filmService;
+    private JdbcTemplate jdbc;
+    private BenchmarkData.Ids ids;
+    private long[] likerIds;
+    //Номер следующей пары (фильм, пользователь) для добавления лайка
+    private final AtomicLong nextLike = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--logging.level.root=WARN");
+        filmStorage = context.getBean(FilmDbStorage.class);
+        userStorage = context.getBean(UserDbStorage.class);
+        filmService = context.getBean(FilmService.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+        ids = new BenchmarkData(films, users, likesPerUser, friendsPerUser, seed).fillDatabase(context);
+        likerIds = userStorage.createUsers(BenchmarkData.newUsers("liker", LIKERS)).stream()
+                .mapToLong(User::getId)
+                .toArray();
+    }
+
+    //Лайки, добавленные за итерацию, удаляются, чтобы следующая итерация начинала с тех же данных
+    @TearDown(Level.Iteration)
+    public void removeAddedLikes() {
+        if (nextLike.getAndSet(0) == 0) {
+            return;
+        }
+        jdbc.update("DELETE FROM likes WHERE user_id BETWEEN ? AND ?", likerIds[0], likerIds[LIKERS - 1]);
+        jdbc.update("UPDATE film f SET like_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id)");
+        filmStorage.loadLikeIndex();
+        filmStorage.loadTrendingIndex();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Film> getPopular() {
+        return filmStorage.getPopular(10);
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends() {
+        return userStorage.getCommonFriends(randomId(ids.users()), randomId(ids.users()));
+    }
+
+    @Benchmark
+    public List<FilmDto> filmServiceGetAll() {
+        return filmService.getAll();
+    }
+
+    @Benchmark
+    public FilmDto addUsersLike() {
+        long like = nextLike.getAndIncrement();
+        return filmService.addUsersLike(filmOf(like), likerOf(like));
+    }
+
+    private long filmOf(long like) {
+        return ids.films()[(int) (like % films)];
+    }
+
+    private long likerOf(long like) {
+        return likerIds[(int) (like / films % LIKERS)];
+    }
+
+    private static long randomId(long[] ids) {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+}
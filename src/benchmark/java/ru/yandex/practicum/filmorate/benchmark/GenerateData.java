@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.util.concurrent.TimeUnit;
+
+//Заполняет базу приложения сгенерированными данными, чтобы затем поднять приложение на ней.
+//Параметры: films, users, likesPerUser, friendsPerUser, seed. База - из application.properties,
+//другую можно задать свойством --spring.datasource.url=...
+public class GenerateData {
+
+    public static void main(String[] args) {
+        Arguments arguments = new Arguments(args);
+        long start = System.nanoTime();
+        BenchmarkData data = new BenchmarkData(
+                arguments.intValue("films", 100_000),
+                arguments.intValue("users", 1_000_000),
+                arguments.intValue("likesPerUser", 20),
+                arguments.intValue("friendsPerUser", 20),
+                arguments.longValue("seed", 42));
+        System.out.printf("Generated %d likes and %d friendships in %d s%n",
+                data.likeCount(), data.friendshipCount(), elapsedSeconds(start));
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments.springArgs("--logging.level.root=WARN"))) {
+            start = System.nanoTime();
+            data.fillDatabase(context);
+            System.out.printf("Database filled in %d s%n", elapsedSeconds(start));
+        }
+    }
+
+    private static long elapsedSeconds(long start) {
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Те же пути, что в DbStorageBenchmark, для хранилищ в памяти на тех же данных
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InMemoryStorageBenchmark {
+
+    //Сколько пользователей без лайков заводится для бенчмарка добавления лайков
+    private static final int LIKERS = 1_000;
+
+    @Param("10000")
+    private int films;
+    @Param("10000")
+    private int users;
+    @Param("20")
+    private int likesPerUser;
+    @Param("20")
+    private int friendsPerUser;
+    @Param("42")
+    private long seed;
+
+    private InMemoryUserStorage userStorage;
+    private InMemoryFilmStorage filmStorage;
+    private BenchmarkData.Ids ids;
+    private long[] likerIds;
+    //Номер следующей пары (фильм, пользователь) для добавления лайка
+    private final AtomicLong nextLike = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userStorage = new InMemoryUserStorage();
+        filmStorage = new InMemoryFilmStorage(userStorage);
+        ids = new BenchmarkData(films, users, likesPerUser, friendsPerUser, seed).fillInMemory(userStorage, filmStorage);
+        likerIds = userStorage.createUsers(BenchmarkData.newUsers("liker", LIKERS)).stream()
+                .mapToLong(User::getId)
+                .toArray();
+    }
+
+    //Лайки, добавленные за итерацию, удаляются, чтобы следующая итерация начинала с тех же данных
+    @TearDown(Level.Iteration)
+    public void removeAddedLikes() {
+        long added = nextLike.getAndSet(0);
+        for (long like = 0; like < added; like++) {
+            filmStorage.deleteLike(filmOf(like), likerOf(like));
+        }
+    }
+
+    @Benchmark
+    public List<Film> getPopular() {
+        return filmStorage.getPopular(10);
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends() {
+        return userStorage.getCommonFriends(randomId(ids.users()), randomId(ids.users()));
+    }
+
+    @Benchmark
+    public List<FilmDto> getAllWithDetails() {
+        return filmStorage.getAllWithDetails();
+    }
+
+    @Benchmark
+    public Film addLike() {
+        long like = nextLike.getAndIncrement();
+        return filmStorage.addLike(filmOf(like), likerOf(like));
+    }
+
+    private long filmOf(long like) {
+        return ids.films()[(int) (like % films)];
+    }
+
+    private long likerOf(long like) {
+        return likerIds[(int) (like / films % LIKERS)];
+    }
+
+    private static long randomId(long[] ids) {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+}
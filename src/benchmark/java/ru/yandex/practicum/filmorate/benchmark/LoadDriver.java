@@ -0,0 +1,245 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//Нагрузочный прогон: поднимает приложение на свободном порту с базой H2 в памяти, заполняет ее BenchmarkData
+//и из нескольких потоков шлет смешанный REST-трафик через контроллеры. После прогона печатает по каждой
+//операции число запросов, пропускную способность и перцентили задержки.
+//Параметры: films, users, likesPerUser, friendsPerUser, seed, threads, warmup и seconds (длительность
+//прогрева и замера в секундах). Свойства Spring передаются как --name=value, например
+//--logging.level.org.zalando.logbook=TRACE, чтобы замерить приложение с журналом запросов
+public class LoadDriver {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    //Доля операции в трафике - ее вес, деленный на сумму весов
+    private enum Operation {
+        LIST_FILMS(30),
+        POPULAR(25),
+        LIKE(15),
+        FRIEND(10),
+        COMMON_FRIENDS(20);
+
+        private final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    //Приложение отвечает по HTTP/1.1: без попыток перейти на HTTP/2 в каждом соединении
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final String baseUrl;
+    private final BenchmarkData.Ids ids;
+
+    private LoadDriver(String baseUrl, BenchmarkData.Ids ids) {
+        this.baseUrl = baseUrl;
+        this.ids = ids;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Arguments arguments = new Arguments(args);
+        BenchmarkData data = new BenchmarkData(
+                arguments.intValue("films", 10_000),
+                arguments.intValue("users", 100_000),
+                arguments.intValue("likesPerUser", 20),
+                arguments.intValue("friendsPerUser", 20),
+                arguments.longValue("seed", 42));
+        int threads = arguments.intValue("threads", 8);
+        int warmup = arguments.intValue("warmup", 10);
+        int seconds = arguments.intValue("seconds", 30);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .run(arguments.springArgs(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.zalando.logbook=WARN"))) {
+            BenchmarkData.Ids ids = data.fillDatabase(context);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadDriver driver = new LoadDriver("http://localhost:" + port, ids);
+
+            System.out.printf("Warming up for %d s with %d threads%n", warmup, threads);
+            driver.run(threads, warmup);
+            System.out.printf("Measuring for %d s with %d threads%n", seconds, threads);
+            driver.report(driver.run(threads, seconds), seconds);
+        }
+    }
+
+    //Гоняет трафик заданное время и возвращает результаты всех потоков
+    private List<Results> run(int threads, int seconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Results>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> worker(deadline)));
+            }
+            List<Results> results = new ArrayList<>();
+            for (Future<Results> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private Results worker(long deadline) {
+        Results results = new Results();
+        int totalWeight = Arrays.stream(Operation.values()).mapToInt(operation -> operation.weight).sum();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            Operation operation = pick(random.nextInt(totalWeight));
+            HttpRequest request = request(operation, random);
+            long start = System.nanoTime();
+            int status;
+            try {
+                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (Exception e) {
+                status = -1;
+            }
+            results.add(operation, System.nanoTime() - start, status);
+        }
+        return results;
+    }
+
+    private static Operation pick(int point) {
+        for (Operation operation : Operation.values()) {
+            point -= operation.weight;
+            if (point < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Вес вне суммы весов операций");
+    }
+
+    private HttpRequest request(Operation operation, ThreadLocalRandom random) {
+        long user = randomId(ids.users(), random);
+        long other = randomId(ids.users(), random);
+        return switch (operation) {
+            case LIST_FILMS -> get("/films?limit=50");
+            case POPULAR -> get("/films/popular?count=10");
+            case LIKE -> put("/films/" + randomId(ids.films(), random) + "/like/" + user);
+            case FRIEND -> put("/users/" + user + "/friends/" + other);
+            case COMMON_FRIENDS -> get("/users/" + user + "/friends/common/" + other);
+        };
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest put(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).PUT(HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private static long randomId(long[] ids, ThreadLocalRandom random) {
+        return ids[random.nextInt(ids.length)];
+    }
+
+    //Ответы 4xx (повторный лайк или дружба) - ожидаемый отказ, 5xx и ошибки соединения - сбой
+    private void report(List<Results> results, int seconds) {
+        System.out.printf("%-16s %9s %9s %9s %10s", "operation", "requests", "rejected", "failed", "req/s");
+        for (double percentile : PERCENTILES) {
+            System.out.printf(" %9s", "p" + percentile + " ms");
+        }
+        System.out.printf(" %9s%n", "max ms");
+        for (Operation operation : Operation.values()) {
+            Samples merged = new Samples();
+            int rejected = 0;
+            int failed = 0;
+            for (Results next : results) {
+                Samples samples = next.samples.get(operation);
+                merged.addAll(samples);
+                rejected += samples.rejected;
+                failed += samples.failed;
+            }
+            long[] latencies = merged.sorted();
+            System.out.printf("%-16s %9d %9d %9d %10.1f", operation, latencies.length, rejected, failed,
+                    (double) latencies.length / seconds);
+            for (double percentile : PERCENTILES) {
+                System.out.printf(" %9.2f", millis(percentile(latencies, percentile)));
+            }
+            System.out.printf(" %9.2f%n", millis(latencies.length == 0 ? 0 : latencies[latencies.length - 1]));
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    //Результаты одного потока: без синхронизации, объединяются после прогона
+    private static class Results {
+        private final Map<Operation, Samples> samples = new EnumMap<>(Operation.class);
+
+        Results() {
+            for (Operation operation : Operation.values()) {
+                samples.put(operation, new Samples());
+            }
+        }
+
+        void add(Operation operation, long nanos, int status) {
+            Samples next = samples.get(operation);
+            next.add(nanos);
+            if (status < 0 || status >= 500) {
+                next.failed++;
+            } else if (status >= 400) {
+                next.rejected++;
+            }
+        }
+    }
+
+    //Задержки в наносекундах в растущем массиве
+    private static class Samples {
+        private long[] latencies = new long[1024];
+        private int size;
+        private int rejected;
+        private int failed;
+
+        void add(long nanos) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = nanos;
+        }
+
+        void addAll(Samples other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.latencies[i]);
+            }
+        }
+
+        long[] sorted() {
+            long[] result = Arrays.copyOf(latencies, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//Цена журнала на один HTTP-запрос. Приложение поднимается на свободном порту в одном из режимов:
+//none - журнал выключен (нижняя граница), before - как было до асинхронного журнала: logbook с телами
+//всех запросов, отладочные сообщения приложения, синхронная запись, after - настройки application.properties.
+//Консольный журнал пишется в target/logging-benchmark-<режим>.log, чтобы не смешиваться с выводом JMH
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingBenchmark {
+
+    @Param({"none", "before", "after"})
+    private String logging;
+    @Param("1000")
+    private int films;
+    @Param("1000")
+    private int users;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private PrintStream console;
+    private PrintStream logFile;
+    private ConfigurableApplicationContext context;
+    private String baseUrl;
+    private BenchmarkData.Ids ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws FileNotFoundException {
+        console = System.out;
+        logFile = new PrintStream(new FileOutputStream("target/logging-benchmark-" + logging + ".log"), true);
+        System.setOut(logFile);
+        context = new SpringApplicationBuilder(FilmorateApplication.class).run(springArgs());
+        ids = new BenchmarkData(films, users, 20, 20, 42).fillDatabase(context);
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        System.setOut(console);
+        logFile.close();
+    }
+
+    private String[] springArgs() {
+        String database = "--spring.datasource.url=jdbc:h2:mem:logging;DB_CLOSE_DELAY=-1";
+        return switch (logging) {
+            case "none" -> new String[]{"--server.port=0", database,
+                    "--logging.level.root=WARN",
+                    "--logging.level.org.zalando.logbook=WARN"};
+            //Список исключений logbook заменяется целиком: частые чтения снова попадают в журнал
+            case "before" -> new String[]{"--server.port=0", database,
+                    "--spring.profiles.active=sync-logging",
+                    "--logging.level.ru.yandex.practicum.filmorate=DEBUG",
+                    "--filmorate.logbook.body-sample-rate=1",
+                    "--logbook.predicate.exclude[0].path=/actuator/**"};
+            case "after" -> new String[]{"--server.port=0", database};
+            default -> throw new IllegalArgumentException("Неизвестный режим журнала: " + logging);
+        };
+    }
+
+    @Benchmark
+    public int getFilm() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/films/" + randomId(ids.films()))).GET().build());
+    }
+
+    @Benchmark
+    public int getPopular() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/films/popular?count=10")).GET().build());
+    }
+
+    @Benchmark
+    public int updateUser() throws IOException, InterruptedException {
+        long id = randomId(ids.users());
+        String body = String.format("{\"id\":%d,\"email\":\"updated%d@bench.ru\",\"login\":\"updated%d\","
+                + "\"name\":\"User %d\",\"birthday\":\"1990-01-01\"}", id, id, id, id);
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/users"))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status >= 400) {
+            throw new IllegalStateException(request.method() + " " + request.uri() + " вернул " + status);
+        }
+        return status;
+    }
+
+    private static long randomId(long[] ids) {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+}
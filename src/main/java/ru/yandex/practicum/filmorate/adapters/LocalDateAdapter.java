@@ -2,6 +2,7 @@ package ru.yandex.practicum.filmorate.adapters;
 
 import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 
 import java.io.IOException;
@@ -22,6 +23,10 @@ public class LocalDateAdapter extends TypeAdapter<LocalDate> {
     @Override
     public LocalDate read(JsonReader jsonReader) throws IOException {
         //Подумать как перехватить и выдать ValidationException
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
         return LocalDate.parse(jsonReader.nextString(), dateTimeFormatter);
     }
 }
@@ -1,16 +1,26 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.yandex.practicum.filmorate.dto.FilmDto;
 import ru.yandex.practicum.filmorate.dto.FilmRequest;
+import ru.yandex.practicum.filmorate.dto.Page;
+import ru.yandex.practicum.filmorate.service.BulkImportService;
+import ru.yandex.practicum.filmorate.service.ExportService;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 @RestController
@@ -22,35 +32,65 @@ public class FilmController {
     @Autowired
     private final FilmService filmService;
 
+    @Autowired
+    private final BulkImportService bulkImportService;
+
+    @Autowired
+    private final ExportService exportService;
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public FilmDto create(@Valid @RequestBody FilmRequest request) {
-        log.info("\nCreation of {}", request);
+        log.debug("\nCreation of {}", request);
         FilmDto fd = filmService.addNewFilm(request);
-        log.info("Created {}", fd);
+        log.debug("Created {}", fd);
         return fd;
     }
 
+    //Тело запроса - NDJSON, в ответ по мере обработки пишется NDJSON с результатом каждой строки
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void bulkCreate(InputStream body, HttpServletResponse response) throws IOException {
+        log.debug("\nBulk creation of films");
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        bulkImportService.importFilms(body, response.getOutputStream());
+    }
+
     @PutMapping
     @ResponseStatus(HttpStatus.OK)
     public FilmDto update(@Valid @RequestBody FilmRequest request) {
-        log.info("\nUpdating of {}", request);
+        log.debug("\nUpdating of {}", request);
         FilmDto fd = filmService.modifyFilm(request);
-        log.info("Created {}", fd);
+        log.debug("Created {}", fd);
         return fd;
     }
 
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
     public FilmDto deleteFilm(@Valid @PathVariable("id") @Positive(message = "Films Id must be positive") long id) {
-        log.info("\nDeleting of film id = {}", id);
+        log.debug("\nDeleting of film id = {}", id);
         return filmService.deleteFilm(id);
     }
 
+    //Без параметров возвращается весь список, с after или limit - одна страница,
+    //курсор следующей страницы передается в заголовке X-Next-Cursor
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public List<FilmDto> findAll() {
-        return filmService.getAll();
+    public ResponseEntity<List<FilmDto>> findAll(
+            @RequestParam(required = false) String after,
+            @Valid @RequestParam(required = false) @Positive @Max(Page.MAX_LIMIT) Integer limit) {
+        if (after == null && limit == null) {
+            return ResponseEntity.ok(filmService.getAll());
+        }
+        return toResponse(filmService.getFilmsPage(after, limit == null ? Page.DEFAULT_LIMIT : limit));
+    }
+
+    //Все фильмы в NDJSON, записи пишутся в ответ по мере чтения из базы
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void export(HttpServletResponse response) throws IOException {
+        log.debug("\nExport of films");
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        exportService.exportFilms(response.getOutputStream());
     }
 
     @GetMapping("/{id}")
@@ -62,15 +102,24 @@ public class FilmController {
     @GetMapping("/popular")
     @ResponseStatus(HttpStatus.OK)
     public List<FilmDto> findFilms(@Valid @RequestParam(required = false, defaultValue = "10") @Positive Long count) {
-        log.info("\nGetting {} most popular films", count);
+        log.debug("\nGetting {} most popular films", count);
         return filmService.getPopularFilms(count);
     }
 
+    @GetMapping("/trending")
+    @ResponseStatus(HttpStatus.OK)
+    public List<FilmDto> findTrendingFilms(
+            @RequestParam(required = false, defaultValue = "24h") String window,
+            @Valid @RequestParam(required = false, defaultValue = "10") @Positive @Max(Page.MAX_LIMIT) int count) {
+        log.debug("\nGetting {} trending films for {}", count, window);
+        return filmService.getTrendingFilms(window, count);
+    }
+
     @PutMapping("/{filmId}/like/{userId}")
     @ResponseStatus(HttpStatus.OK)
     public FilmDto addUsersLike(@Valid @PathVariable @Positive(message = "Films id must be positive") long filmId,
                                 @Valid @PathVariable @Positive(message = "Users id must be positive") long userId) {
-        log.info("\nAdding of like to film {} from user {}", filmId, userId);
+        log.debug("\nAdding of like to film {} from user {}", filmId, userId);
         return filmService.addUsersLike(filmId, userId);
     }
 
@@ -78,8 +127,16 @@ public class FilmController {
     @ResponseStatus(HttpStatus.OK)
     public FilmDto deleteUsersLike(@Valid @PathVariable @Positive(message = "Films id must be positive") long id,
                                    @Valid @PathVariable @Positive(message = "Users id must be positive") long userId) {
-        log.info("\nDeleting of like to film {} from user {}", id, userId);
+        log.debug("\nDeleting of like to film {} from user {}", id, userId);
         return filmService.deleteUsersLike(id, userId);
     }
 
+    private ResponseEntity<List<FilmDto>> toResponse(Page<FilmDto> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(Page.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
 }
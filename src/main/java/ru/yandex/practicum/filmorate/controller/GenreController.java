@@ -24,7 +24,7 @@ public class GenreController {
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public GenreDto create(@Valid @RequestBody GenreRequest request) {
-        log.info("\nCreation genre {}", request);
+        log.debug("\nCreation genre {}", request);
         return genreService.createGenre(request);
     }
 
@@ -32,7 +32,7 @@ public class GenreController {
     @ResponseStatus(HttpStatus.OK)
     public GenreDto update(@PathVariable("genreId") @Positive(message = "Genre Id must be positive") long id,
                            @Valid @RequestBody GenreRequest request) {
-        log.info("\nUpdating genre {}", id);
+        log.debug("\nUpdating genre {}", id);
         return genreService.changeGenreData(id, request);
     }
 
@@ -45,7 +45,7 @@ public class GenreController {
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
     public List<GenreDto> getAll() {
-        log.info("\nGetting all genres");
+        log.debug("\nGetting all genres");
         return genreService.getAllGenre();
     }
 
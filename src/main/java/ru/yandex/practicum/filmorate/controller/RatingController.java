@@ -25,7 +25,7 @@ public class RatingController {
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public RatingDto create(@Valid @RequestBody RatingRequest request) {
-        log.info("\nCreation rating {}", request);
+        log.debug("\nCreation rating {}", request);
         return ratingService.createRating(request);
     }
 
@@ -33,7 +33,7 @@ public class RatingController {
     @ResponseStatus(HttpStatus.OK)
     public RatingDto update(@PathVariable("rating") @Positive(message = "Rating's Id must be positive") long id,
                             @Valid @RequestBody RatingRequest request) {
-        log.info("\nUpdating rating {}", id);
+        log.debug("\nUpdating rating {}", id);
         return ratingService.changeRatingData(id, request);
     }
 
@@ -1,15 +1,27 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Positive;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.Page;
 import ru.yandex.practicum.filmorate.dto.UserDto;
 import ru.yandex.practicum.filmorate.dto.UserRequest;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.service.BulkImportService;
+import ru.yandex.practicum.filmorate.service.ExportService;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -18,29 +30,60 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final BulkImportService bulkImportService;
+    private final ExportService exportService;
+    private final FilmService filmService;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, BulkImportService bulkImportService,
+                          ExportService exportService, FilmService filmService) {
         this.userService = userService;
+        this.bulkImportService = bulkImportService;
+        this.exportService = exportService;
+        this.filmService = filmService;
     }
 
     //Измененные в связи с добавлением UserService методы
+    //Без параметров возвращается весь список, с after или limit - одна страница,
+    //курсор следующей страницы передается в заголовке X-Next-Cursor
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public List<UserDto> getAll() {
-        return userService.getAllUsers();
+    public ResponseEntity<List<UserDto>> getAll(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) @Positive @Max(Page.MAX_LIMIT) Integer limit) {
+        if (after == null && limit == null) {
+            return ResponseEntity.ok(userService.getAllUsers());
+        }
+        return toResponse(userService.getUsersPage(after, limit == null ? Page.DEFAULT_LIMIT : limit));
+    }
+
+    //Все пользователи в NDJSON, записи пишутся в ответ по мере чтения из базы
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void export(HttpServletResponse response) throws IOException {
+        log.debug("\nExport of users");
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        exportService.exportUsers(response.getOutputStream());
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public UserDto create(@Valid @RequestBody UserRequest request) {
-        log.info("\nCreation user {}", request);
+        log.debug("\nCreation user {}", request);
         return userService.createUser(request);
     }
 
+    //Тело запроса - NDJSON, в ответ по мере обработки пишется NDJSON с результатом каждой строки
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void bulkCreate(InputStream body, HttpServletResponse response) throws IOException {
+        log.debug("\nBulk creation of users");
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        bulkImportService.importUsers(body, response.getOutputStream());
+    }
+
     @PutMapping
     @ResponseStatus(HttpStatus.OK)
     public UserDto update(@Valid @RequestBody UserRequest request) {
-        log.info("\nUpdating user {}", request);
+        log.debug("\nUpdating user {}", request);
         return userService.changeUsersData(request);
     }
 
@@ -48,7 +91,7 @@ public class UserController {
     @ResponseStatus(HttpStatus.OK)
     public List<UserDto> addFriends(@PathVariable @Positive(message = "Users Id must be positive") long id,
                                     @PathVariable @Positive(message = "Users Id must be positive") long friendId) {
-        log.info("\nMaking {} as friend {}", id, friendId);
+        log.debug("\nMaking {} as friend {}", id, friendId);
         if (id == friendId) {
             log.warn("\nNot added friends {} and {} because identifiers are equal", id, friendId);
             throw new ValidationException("Friends are not added.", "Identifiers have not be equal.");
@@ -60,7 +103,7 @@ public class UserController {
     @ResponseStatus(HttpStatus.OK)
     public List<UserDto> killFriendship(@PathVariable @Positive(message = "Users Id must be positive") long id,
                                         @PathVariable @Positive(message = "Users Id must be positive") long friendId) {
-        log.info("\nDelete {} as friend {}", id, friendId);
+        log.debug("\nDelete {} as friend {}", id, friendId);
         if (id == friendId) {
             log.warn("\nNot deleted friendship between {} and {} because identifiers are equal", id, friendId);
             throw new ValidationException("Friends are not deleted.", "Identifiers have not be equal.");
@@ -69,17 +112,42 @@ public class UserController {
     }
 
     @GetMapping("/{id}/friends")
+    public ResponseEntity<List<UserDto>> getUsersFriends(
+            @PathVariable @Positive(message = "Users Id must be positive") Long id,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) @Positive @Max(Page.MAX_LIMIT) Integer limit) {
+        log.debug("\nGetting friendslist of {}", id);
+        if (after == null && limit == null) {
+            return ResponseEntity.ok(userService.getFriends(id));
+        }
+        return toResponse(userService.getFriendsPage(id, after, limit == null ? Page.DEFAULT_LIMIT : limit));
+    }
+
+    //Друзья друзей по убыванию числа общих друзей
+    @GetMapping("/{id}/friends/suggestions")
     @ResponseStatus(HttpStatus.OK)
-    public List<UserDto> getUsersFriends(@PathVariable @Positive(message = "Users Id must be positive") Long id) {
-        log.info("\nGetting friendslist of {}", id);
-        return userService.getFriends(id);
+    public List<UserDto> getFriendSuggestions(
+            @PathVariable @Positive(message = "Users Id must be positive") long id,
+            @RequestParam(required = false, defaultValue = "10") @Positive @Max(Page.MAX_LIMIT) int count) {
+        log.debug("\nGetting {} friend suggestions for {}", count, id);
+        return userService.getFriendSuggestions(id, count);
+    }
+
+    //Фильмы, которые лайкнули друзья, по убыванию числа лайкнувших друзей
+    @GetMapping("/{id}/friends/films")
+    @ResponseStatus(HttpStatus.OK)
+    public List<FilmDto> getFilmsLikedByFriends(
+            @PathVariable @Positive(message = "Users Id must be positive") long id,
+            @RequestParam(required = false, defaultValue = "10") @Positive @Max(Page.MAX_LIMIT) int count) {
+        log.debug("\nGetting {} films liked by friends of {}", count, id);
+        return filmService.getFilmsLikedByFriends(id, count);
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
     @ResponseStatus(HttpStatus.OK)
     public List<UserDto> getCommonFriends(@PathVariable @Positive(message = "Users Id must be positive") long id,
                                           @PathVariable @Positive(message = "Users Id must be positive") long otherId) {
-        log.info("\nGetting common friends {} and {}", id, otherId);
+        log.debug("\nGetting common friends {} and {}", id, otherId);
         if (id == otherId) {
             log.warn("\nList common friends {} and {} is impossible because identifiers are equal", id, otherId);
             throw new ValidationException("Friends are not found.", "Identifiers have not be equal.");
@@ -87,10 +155,28 @@ public class UserController {
         return userService.getCommonFriends(id, otherId);
     }
 
+    //Фильмы, которые понравились пользователям с похожими лайками
+    @GetMapping("/{id}/recommendations")
+    @ResponseStatus(HttpStatus.OK)
+    public List<FilmDto> getRecommendations(
+            @PathVariable @Positive(message = "Users Id must be positive") long id,
+            @RequestParam(required = false, defaultValue = "10") @Positive @Max(Page.MAX_LIMIT) int count) {
+        log.debug("\nGetting {} film recommendations for {}", count, id);
+        return filmService.getRecommendations(id, count);
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
     public UserDto deleteUser(@PathVariable @Positive(message = "Users Id must be positive") long id) {
         return userService.deleteUser(id);
     }
 
-}
\ No newline at end of file
+    private ResponseEntity<List<UserDto>> toResponse(Page<UserDto> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(Page.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
+}
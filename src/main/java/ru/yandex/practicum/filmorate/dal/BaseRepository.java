@@ -1,25 +1,61 @@
 package ru.yandex.practicum.filmorate.dal;
 
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.yandex.practicum.filmorate.exception.InternalServerException;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
-@RequiredArgsConstructor
+@Slf4j
 public class BaseRepository<T> {
+    // Сколько строк отправляется в базу одним пакетом при многострочной записи
+    protected static final int DEFAULT_BATCH_SIZE = 500;
+    // Сколько строк драйвер забирает из курсора за одно обращение при построчном чтении
+    protected static final int STREAM_FETCH_SIZE = 1000;
+    // Сколько id подставляется в один список IN (...): длинный список параметров H2 разбирает медленно
+    protected static final int IN_LIST_CHUNK_SIZE = 1000;
+    private static final Set<String> FOREIGN_KEY_VIOLATION_STATES = Set.of("23503", "23506");
+
     protected final JdbcTemplate jdbc;
     protected final RowMapper<T> mapper;
+    protected final QueryMetrics queryMetrics;
+
+    // Запросы хранилища регистрируются в метриках по именам их констант
+    protected BaseRepository(JdbcTemplate jdbc, RowMapper<T> mapper, QueryMetrics queryMetrics) {
+        this.jdbc = jdbc;
+        this.mapper = mapper;
+        this.queryMetrics = queryMetrics;
+        queryMetrics.register(getClass());
+    }
 
     protected Optional<T> findOne(String query, Object... params) {
         try {
-            T result = jdbc.queryForObject(query, mapper, params);
+            T result = timed(query, () -> jdbc.queryForObject(query, mapper, params));
             return Optional.ofNullable(result);
         } catch (EmptyResultDataAccessException ignored) {
             return Optional.empty();
@@ -27,16 +63,60 @@ public class BaseRepository<T> {
     }
 
     protected List<T> findMany(String query, Object... params) {
-        return jdbc.query(query, mapper, params);
+        return timed(query, () -> jdbc.query(query, mapper, params));
+    }
+
+    // Построчное чтение через однонаправленный курсор: строки не накапливаются в списке
+    protected void stream(String query, RowCallbackHandler handler, Object... params) {
+        timed(query, () -> jdbc.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(query,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            for (int idx = 0; idx < params.length; idx++) {
+                ps.setObject(idx + 1, params[idx]);
+            }
+            return ps;
+        }, handler));
+    }
+
+    // Записи в порядке переданных id, отсутствующие в базе пропускаются. Запрос содержит IN (%s),
+    // id подставляются в него частями по IN_LIST_CHUNK_SIZE
+    protected List<T> findByIds(String query, List<Long> ids, Function<T, Long> idOf) {
+        Map<Long, T> found = new HashMap<>();
+        for (List<Long> chunk : inListChunks(ids)) {
+            findMany(formatInList(query, chunk.size()), chunk.toArray())
+                    .forEach(row -> found.put(idOf.apply(row), row));
+        }
+        return ids.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    protected static List<List<Long>> inListChunks(Collection<Long> ids) {
+        List<Long> list = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += IN_LIST_CHUNK_SIZE) {
+            chunks.add(list.subList(from, Math.min(from + IN_LIST_CHUNK_SIZE, list.size())));
+        }
+        return chunks;
+    }
+
+    protected static String formatInList(String query, int size) {
+        return String.format(query, String.join(", ", Collections.nCopies(size, "?")));
+    }
+
+    protected void forEach(String query, Consumer<T> action, Object... params) {
+        stream(query, rs -> action.accept(mapper.mapRow(rs, rs.getRow())), params);
     }
 
     protected boolean delete(String query, Object... args) {
-        int rowsDeleted = jdbc.update(query, args);
+        int rowsDeleted = timed(query, () -> jdbc.update(query, args));
         return rowsDeleted > 0;
     }
 
     protected void update(String query, Object... params) {
-        int rowsUpdated = jdbc.update(query, params);
+        int rowsUpdated = timed(query, () -> jdbc.update(query, params));
         if (rowsUpdated == 0) {
             throw new InternalServerException("Не удалось обновить данные");
         }
@@ -44,14 +124,14 @@ public class BaseRepository<T> {
 
     protected long insert(String query, Object... params) {
         GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
-        jdbc.update(connection -> {
+        timed(query, () -> jdbc.update(connection -> {
             PreparedStatement ps = connection
                     .prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
             for (int idx = 0; idx < params.length; idx++) {
                 ps.setObject(idx + 1, params[idx]);
             }
             return ps;
-        }, keyHolder);
+        }, keyHolder));
 
         Long id = keyHolder.getKeyAs(Long.class);
 
@@ -62,4 +142,113 @@ public class BaseRepository<T> {
             throw new InternalServerException("Не удалось сохранить данные");
         }
     }
-}
\ No newline at end of file
+
+    // Многострочная вставка одним пакетом, возвращает id новых строк в порядке batchArgs
+    protected List<Long> batchInsert(String query, List<Object[]> batchArgs) {
+        if (batchArgs.isEmpty()) {
+            return List.of();
+        }
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        timed(query, () -> jdbc.batchUpdate(
+                connection -> connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int row) throws SQLException {
+                        Object[] args = batchArgs.get(row);
+                        for (int idx = 0; idx < args.length; idx++) {
+                            ps.setObject(idx + 1, args[idx]);
+                        }
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batchArgs.size();
+                    }
+                }, keyHolder));
+        List<Long> ids = keyHolder.getKeyList().stream()
+                .map(keys -> ((Number) keys.values().iterator().next()).longValue())
+                .toList();
+        if (ids.size() != batchArgs.size()) {
+            throw new InternalServerException("Не удалось сохранить данные");
+        }
+        return ids;
+    }
+
+    protected void batchUpdate(String query, List<Object[]> batchArgs) {
+        batchUpdate(query, batchArgs, DEFAULT_BATCH_SIZE);
+    }
+
+    // Многострочная запись пакетами по batchSize строк, сгенерированные ключи не запрашиваются
+    protected void batchUpdate(String query, List<Object[]> batchArgs, int batchSize) {
+        if (batchArgs.isEmpty()) {
+            return;
+        }
+        timed(query, () -> jdbc.batchUpdate(query, batchArgs, batchSize, (ps, args) -> {
+            for (int idx = 0; idx < args.length; idx++) {
+                ps.setObject(idx + 1, args[idx]);
+            }
+        }));
+    }
+
+    // Вставка связи без предварительных проверок: дубликат отсекает уникальный индекс,
+    // ссылку на несуществующую запись - внешний ключ. Прочие нарушения (NOT NULL, CHECK) пробрасываются
+    protected WriteResult insertIfAbsent(String query, Object... params) {
+        try {
+            timed(query, () -> jdbc.update(query, params));
+            return WriteResult.CREATED;
+        } catch (DuplicateKeyException e) {
+            return WriteResult.DUPLICATE;
+        } catch (DataIntegrityViolationException e) {
+            if (isForeignKeyViolation(e)) {
+                return WriteResult.MISSING_REFERENCE;
+            }
+            throw e;
+        }
+    }
+
+    // 23503 - стандартный SQLSTATE нарушения внешнего ключа, 23506 - код H2 для ссылки на отсутствующую запись
+    private static boolean isForeignKeyViolation(DataIntegrityViolationException e) {
+        return NestedExceptionUtils.getMostSpecificCause(e) instanceof SQLException sqlException
+                && FOREIGN_KEY_VIOLATION_STATES.contains(sqlException.getSQLState());
+    }
+
+    // Запрос с замером времени: для обращений к jdbc в обход методов выше
+    protected <R> R timed(String query, Supplier<R> call) {
+        return queryMetrics.record(getClass(), query, call);
+    }
+
+    protected void timed(String query, Runnable call) {
+        queryMetrics.record(getClass(), query, call);
+    }
+
+    // Структуры в памяти не видят несохраненных изменений текущей транзакции,
+    // поэтому внутри транзакции читать нужно из базы
+    protected boolean inTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    // Изменение структур в памяти откладывается до фиксации транзакции, чтобы после отката
+    // в них не осталось несохраненных данных. Вне транзакции изменение выполняется сразу.
+    // Данные в базе к этому моменту уже записаны, поэтому ошибка изменения только попадает в журнал:
+    // клиент не должен получить ошибку за сохраненное изменение
+    protected void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            runAfterCommit(action);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                runAfterCommit(action);
+            }
+        });
+    }
+
+    private void runAfterCommit(Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            log.error("\nIn-memory structures of {} not updated after commit", getClass().getSimpleName(), e);
+        }
+    }
+}
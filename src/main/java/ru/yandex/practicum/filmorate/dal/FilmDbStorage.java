@@ -1,16 +1,42 @@
 package ru.yandex.practicum.filmorate.dal;
 
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
 import ru.yandex.practicum.filmorate.dto.FilmRequest;
+import ru.yandex.practicum.filmorate.exception.DuplicateDataException;
 import ru.yandex.practicum.filmorate.exception.InternalServerException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.mapper.FilmMapper;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.storage.FilmGenre.FilmGenreStorage;
+import ru.yandex.practicum.filmorate.storage.SortedAdjacency;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.LikeIndex;
+import ru.yandex.practicum.filmorate.storage.film.TrendingIndex;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Slf4j
 @Component("filmDbStorage")
@@ -22,25 +48,83 @@ public class FilmDbStorage extends BaseRepository<Film> implements FilmStorage {
             "UPDATE film SET name = ?, description = ?, duration = ?, release_date = ?, mpa = ? WHERE id = ?";
     private static final String DELETE_FILM_QUERY = "DELETE FROM film WHERE id = ?";
     private static final String GET_ALL_FILMS_QUERY = "SELECT * FROM film";
-    private static final String INSERT_NEW_LIKE_QUERY = "INSERT INTO likes (film_id, user_id) VALUES (?, ?)";
-    private static final String DELETE_LIKE_QUERY = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
+    // Страница начинается поиском по первичному ключу, поэтому ее время не зависит от номера страницы
+    private static final String GET_FILMS_PAGE_QUERY = "SELECT * FROM film WHERE id > ? ORDER BY id LIMIT ?";
+    // Фильмы сразу с рейтингом МПА и жанры всех фильмов - два запроса вне зависимости от размера каталога
+    private static final String GET_ALL_FILMS_WITH_MPA_QUERY =
+            "SELECT f.*, r.name AS mpa_name, r.description AS mpa_description " +
+                    "FROM film f LEFT JOIN rating r ON f.mpa = r.id ORDER BY f.id";
+    private static final String GET_ALL_FILMS_GENRES_QUERY =
+            "SELECT DISTINCT fg.film_id, g.id, g.name, g.description " +
+                    "FROM film_genre fg JOIN genre g ON fg.genre_id = g.id ORDER BY fg.film_id, g.id";
+    // Строки одного фильма идут подряд: фильм читается по первичному ключу, без сортировки результата
+    private static final String EXPORT_FILMS_QUERY =
+            "SELECT f.*, r.name AS mpa_name, r.description AS mpa_description, " +
+                    "g.id AS genre_id, g.name AS genre_name, g.description AS genre_description " +
+                    "FROM film f LEFT JOIN rating r ON r.id = f.mpa " +
+                    "LEFT JOIN film_genre fg ON fg.film_id = f.id LEFT JOIN genre g ON g.id = fg.genre_id " +
+                    "ORDER BY f.id";
+    private static final String INSERT_NEW_LIKE_QUERY =
+            "INSERT INTO likes (film_id, user_id, created_at) VALUES (?, ?, ?)";
+    // Удаляет лайк и возвращает его время: по нему лайк вычитается из счетчиков трендов
+    private static final String DELETE_LIKE_QUERY =
+            "SELECT created_at FROM OLD TABLE (DELETE FROM likes WHERE film_id = ? AND user_id = ?)";
+    // like_count - денормализованное число лайков, меняется в одной транзакции с таблицей likes
+    // Увеличивает счетчик и сразу возвращает обновленную строку фильма
+    private static final String INCREMENT_LIKE_COUNT_QUERY =
+            "SELECT * FROM FINAL TABLE (UPDATE film SET like_count = like_count + 1 WHERE id = ?)";
+    private static final String DECREMENT_LIKE_COUNT_QUERY = "UPDATE film SET like_count = like_count - 1 WHERE id = ?";
     private static final String GET_FILM_WITH_LIKE_QUERY =
             "SELECT * FROM film WHERE id IN (SELECT film_id FROM likes WHERE film_id = ? AND user_id = ?)";
 
+    // Читается по индексу film_like_count_idx, таблица likes не затрагивается
     private static final String GET_POPULAR_FILMS_QUERY =
-            "SELECT f.id, name, description, duration, release_date, mpa, COUNT(l.film_id) as count " +
-                    "FROM film f LEFT JOIN likes l ON f.id = l.film_id GROUP BY f.id ORDER BY count desc, f.name LIMIT ?";
+            "SELECT f.*, f.like_count AS count FROM film f ORDER BY f.like_count DESC, f.name LIMIT ?";
 
     private static final String FIND_BY_ID_QUERY = "SELECT * FROM film WHERE id = ?";
     private static final String FIND_BY_NAME_QUERY = "SELECT * FROM film WHERE name = ?";
+    private static final String FIND_BY_IDS_QUERY = "SELECT * FROM film WHERE id IN (%s)";
+    // Лайки одного пользователя идут подряд (индекс likes_user_idx), так их требует загрузка индекса лайков
+    private static final String GET_ALL_LIKES_QUERY = "SELECT user_id, film_id FROM likes ORDER BY user_id";
+    // Читается по индексу likes_created_at_idx: только лайки, попадающие в окна трендов
+    private static final String GET_RECENT_LIKES_QUERY = "SELECT film_id, created_at FROM likes WHERE created_at >= ?";
 
-    public FilmDbStorage(JdbcTemplate jdbc, RowMapper<Film> mapper) {
-        super(jdbc, mapper);
-        //this.filmWithLikesStorage = filmWithLikesStorage;
+    private final RowMapper<FilmDto> dtoMapper;
+    private final FilmGenreStorage filmGenreStorage;
+    // Лайки в памяти для рекомендаций: загружаются из таблицы likes при старте и дальше обновляются вместе с ней
+    private final LikeIndex likeIndex;
+    // Почасовые счетчики лайков для трендов: при старте восстанавливаются из недавних лайков
+    private final TrendingIndex trendingIndex;
+
+    public FilmDbStorage(JdbcTemplate jdbc, RowMapper<Film> mapper, RowMapper<FilmDto> dtoMapper,
+                         QueryMetrics queryMetrics, LikeIndex likeIndex, TrendingIndex trendingIndex,
+                         @Qualifier("filmGenreDbStorage") FilmGenreStorage filmGenreStorage) {
+        super(jdbc, mapper, queryMetrics);
+        this.dtoMapper = dtoMapper;
+        this.filmGenreStorage = filmGenreStorage;
+        this.likeIndex = likeIndex;
+        this.trendingIndex = trendingIndex;
+    }
+
+    @PostConstruct
+    public void loadLikeIndex() {
+        SortedAdjacency.Edges likes = new SortedAdjacency.Edges();
+        stream(GET_ALL_LIKES_QUERY, rs -> likes.add(rs.getLong("user_id"), rs.getLong("film_id")));
+        likeIndex.load(likes);
+        log.info("\nLike index loaded");
+    }
+
+    @PostConstruct
+    public void loadTrendingIndex() {
+        trendingIndex.clear();
+        OffsetDateTime from = trendingIndex.windowStart().atOffset(ZoneOffset.UTC);
+        stream(GET_RECENT_LIKES_QUERY, rs -> trendingIndex.add(rs.getLong("film_id"),
+                rs.getObject("created_at", OffsetDateTime.class).toInstant()), from);
+        log.info("\nTrending index loaded");
     }
 
     public Film addNewFilm(FilmRequest request) {
-        log.warn("\nAdding = {}", request);
+        log.debug("\nAdding {}", request);
         Long id = insert(
                 INSERT_FILM_QUERY,
                 request.getName(),
@@ -54,8 +138,35 @@ public class FilmDbStorage extends BaseRepository<Film> implements FilmStorage {
         return film;
     }
 
+    //Фильмы пакета и их жанры сохраняются в одной транзакции двумя пакетными вставками
+    @Override
+    @Transactional
+    public List<Film> addNewFilms(List<FilmRequest> requests) {
+        List<Long> ids = batchInsert(INSERT_FILM_QUERY, requests.stream()
+                .map(request -> new Object[]{request.getName(), request.getDescription(), request.getDuration(),
+                        request.getReleaseDate(), request.getMpa().getId()})
+                .toList());
+        List<Film> films = new ArrayList<>(requests.size());
+        Map<Long, List<Long>> filmGenres = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            FilmRequest request = requests.get(i);
+            Film film = FilmMapper.mapToFilm(request);
+            film.setId(ids.get(i));
+            films.add(film);
+            if (request.getGenres() != null) {
+                filmGenres.put(film.getId(), request.getGenres().stream()
+                        .map(Genre::getId)
+                        .distinct()
+                        .toList());
+            }
+        }
+        filmGenreStorage.addFilmsGenres(filmGenres);
+        log.info("\nSuccessfully created {} films", films.size());
+        return films;
+    }
+
     public Film changeFilm(Film film) {
-        log.warn("\nUpdating {}", film);
+        log.debug("\nUpdating {}", film);
         update(
                 UPDATE_FILM_QUERY,
                 film.getName(),
@@ -69,9 +180,14 @@ public class FilmDbStorage extends BaseRepository<Film> implements FilmStorage {
     }
 
     public Film deleteFilm(Film film) {
-        if (delete(DELETE_FILM_QUERY, film.getId()))
+        if (delete(DELETE_FILM_QUERY, film.getId())) {
+            // Лайки фильма удаляются из таблицы каскадно, из индекса - явно
+            afterCommit(() -> {
+                likeIndex.removeFilm(film.getId());
+                trendingIndex.removeFilm(film.getId());
+            });
             return film;
-        else
+        } else
             throw new InternalServerException("Не удалось удалить " + film);
     }
 
@@ -79,35 +195,144 @@ public class FilmDbStorage extends BaseRepository<Film> implements FilmStorage {
         return findMany(GET_ALL_FILMS_QUERY);
     }
 
+    @Override
+    public List<FilmDto> getAllWithDetails() {
+        List<FilmDto> films = timed(GET_ALL_FILMS_WITH_MPA_QUERY,
+                () -> jdbc.query(GET_ALL_FILMS_WITH_MPA_QUERY, dtoMapper));
+        Map<Long, List<Genre>> genres = new HashMap<>();
+        timed(GET_ALL_FILMS_GENRES_QUERY, () -> jdbc.query(GET_ALL_FILMS_GENRES_QUERY, rs -> {
+            genres.computeIfAbsent(rs.getLong("film_id"), id -> new ArrayList<>())
+                    .add(new Genre(rs.getLong("id"), rs.getString("name"), rs.getString("description")));
+        }));
+        films.forEach(film -> film.setGenres(genres.getOrDefault(film.getId(), List.of())));
+        return films;
+    }
+
+    @Override
+    public void forEachWithDetails(Consumer<FilmDto> action) {
+        FilmDetailsCollector collector = new FilmDetailsCollector(action);
+        stream(EXPORT_FILMS_QUERY, collector);
+        collector.flush();
+    }
+
+    @Override
+    public List<Film> getPage(long afterId, int limit) {
+        return findMany(GET_FILMS_PAGE_QUERY, afterId, limit);
+    }
+
     public List<Film> getPopular(long count) {
         return findMany(GET_POPULAR_FILMS_QUERY, count);
     }
 
+    // Рейтинг строится по счетчикам в памяти, из базы читаются только сами фильмы
+    @Override
+    public List<Film> getTrending(TrendingWindow window, int count) {
+        return findByIds(trendingIndex.top(window, count));
+    }
+
+    // Наличие лайка проверяется по индексу лайков, из базы читается только сам фильм
     @Override
     public Optional<Film> findFilmWithLike(Long filmId, Long userId) {
-        return findOne(GET_FILM_WITH_LIKE_QUERY, filmId, userId);
+        if (inTransaction())
+            return findOne(GET_FILM_WITH_LIKE_QUERY, filmId, userId);
+        return likeIndex.isLiked(filmId, userId) ? findById(filmId) : Optional.empty();
     }
 
+    @Transactional
     public Film addLike(Long filmId, Long userId) {
-        insert(INSERT_NEW_LIKE_QUERY, filmId, userId);
-        return findById(filmId).orElseThrow(() -> new InternalServerException("Ошибка при чтении данных фильма"));
+        LikeIndex.requireInRange(filmId);
+        LikeIndex.requireInRange(userId);
+        OffsetDateTime likedAt = OffsetDateTime.now(ZoneOffset.UTC);
+        WriteResult result = insertIfAbsent(INSERT_NEW_LIKE_QUERY, filmId, userId, likedAt);
+        if (result == WriteResult.DUPLICATE) {
+            log.warn("\nLike of film {} by user {} already exists", filmId, userId);
+            throw new DuplicateDataException("Like of film " + filmId + " by user " + userId +
+                    " already exists.", filmId);
+        }
+        if (result == WriteResult.MISSING_REFERENCE) {
+            // Выясняем, какой из записей нет, только когда вставка не удалась
+            if (findById(filmId).isEmpty())
+                throw new NotFoundException("Film " + filmId + " not found", filmId);
+            throw new NotFoundException("User id = " + userId + " not exist", userId);
+        }
+        afterCommit(() -> {
+            likeIndex.add(filmId, userId);
+            trendingIndex.add(filmId, likedAt.toInstant());
+        });
+        return findOne(INCREMENT_LIKE_COUNT_QUERY, filmId)
+                .orElseThrow(() -> new InternalServerException("Ошибка при чтении данных фильма"));
     }
 
+    @Transactional
     public Film deleteLike(Long filmId, Long userId) {
         Film film = new Film();
-        if (delete(DELETE_LIKE_QUERY, filmId, userId))
+        List<Instant> deleted = timed(DELETE_LIKE_QUERY, () -> jdbc.query(DELETE_LIKE_QUERY,
+                (rs, rowNum) -> rs.getObject("created_at", OffsetDateTime.class).toInstant(), filmId, userId));
+        if (!deleted.isEmpty()) {
+            update(DECREMENT_LIKE_COUNT_QUERY, filmId);
+            afterCommit(() -> {
+                likeIndex.remove(filmId, userId);
+                trendingIndex.remove(filmId, deleted.get(0));
+            });
             film = findById(filmId).orElseThrow(() -> new InternalServerException("Ошибка при чтении данных фильма"));
-        else
+        } else
             throw new InternalServerException("Не удалось удалить " + film);
         return film;
     }
 
+    // Рекомендации считаются по индексу лайков в памяти, из базы читаются только сами фильмы
+    @Override
+    public List<Film> getRecommendations(long userId, int count) {
+        return findByIds(likeIndex.recommend(userId, count));
+    }
+
+    @Override
+    public List<Film> getLikedByUsers(Collection<Long> userIds, int count) {
+        return findByIds(likeIndex.likedByAny(userIds, count));
+    }
+
     public Optional<Film> findById(long filmId) {
         return findOne(FIND_BY_ID_QUERY, filmId);
     }
 
+    private List<Film> findByIds(List<Long> ids) {
+        return findByIds(FIND_BY_IDS_QUERY, ids, Film::getId);
+    }
+
     public Optional<Film> findByName(String name) {
         return findOne(FIND_BY_NAME_QUERY, name);
     }
 
+    //Собирает фильм из его подряд идущих строк (по одной на жанр) и отдает, когда начинается следующий
+    private class FilmDetailsCollector implements RowCallbackHandler {
+        private final Consumer<FilmDto> action;
+        private FilmDto current;
+
+        FilmDetailsCollector(Consumer<FilmDto> action) {
+            this.action = action;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long filmId = rs.getLong("id");
+            if (current == null || current.getId() != filmId) {
+                flush();
+                current = dtoMapper.mapRow(rs, rs.getRow());
+                current.setGenres(new ArrayList<>());
+            }
+            long genreId = rs.getLong("genre_id");
+            if (!rs.wasNull()) {
+                current.getGenres().add(new Genre(genreId, rs.getString("genre_name"),
+                        rs.getString("genre_description")));
+            }
+        }
+
+        void flush() {
+            if (current != null) {
+                current.getGenres().sort(Comparator.comparing(Genre::getId));
+                action.accept(current);
+                current = null;
+            }
+        }
+    }
 }
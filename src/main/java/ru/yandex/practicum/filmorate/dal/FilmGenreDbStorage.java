@@ -7,6 +7,7 @@ import ru.yandex.practicum.filmorate.model.FilmGenre;
 import ru.yandex.practicum.filmorate.storage.FilmGenre.FilmGenreStorage;
 
 import java.util.List;
+import java.util.Map;
 
 @Component("filmGenreDbStorage")
 public class FilmGenreDbStorage extends BaseRepository<FilmGenre> implements FilmGenreStorage {
@@ -15,8 +16,8 @@ public class FilmGenreDbStorage extends BaseRepository<FilmGenre> implements Fil
     private static final String INSERT_FILM_GENRES_QUERY = "INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?)";
     private static final String DELETE_FILMS_GENRES_QUERY = "DELETE FROM film_genre WHERE film_id = ?";
 
-    public FilmGenreDbStorage(JdbcTemplate jdbc, RowMapper<FilmGenre> mapper) {
-        super(jdbc, mapper);
+    public FilmGenreDbStorage(JdbcTemplate jdbc, RowMapper<FilmGenre> mapper, QueryMetrics queryMetrics) {
+        super(jdbc, mapper, queryMetrics);
     }
 
     public List<FilmGenre> getGenresOfFilm(Long id) {
@@ -26,12 +27,20 @@ public class FilmGenreDbStorage extends BaseRepository<FilmGenre> implements Fil
     @Override
     public void addFilmGenres(Long id, List<Long> genres) {
         if (genres != null) {
-            for (Long l : genres) {
-                insert(INSERT_FILM_GENRES_QUERY, id, l);
-            }
+            batchUpdate(INSERT_FILM_GENRES_QUERY, genres.stream()
+                    .map(genreId -> new Object[]{id, genreId})
+                    .toList());
         }
     }
 
+    @Override
+    public void addFilmsGenres(Map<Long, List<Long>> genresByFilm) {
+        batchUpdate(INSERT_FILM_GENRES_QUERY, genresByFilm.entrySet().stream()
+                .flatMap(entry -> entry.getValue().stream()
+                        .map(genreId -> new Object[]{entry.getKey(), genreId}))
+                .toList());
+    }
+
     @Override
     public void deleteGenreOfFilms(long id) {
         delete(DELETE_FILMS_GENRES_QUERY, id);
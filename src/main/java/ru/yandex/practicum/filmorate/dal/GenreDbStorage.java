@@ -5,27 +5,37 @@ import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.InternalServerException;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Component("genreDbStorage")
-public class GenreDbStorage extends BaseRepository<Genre> {
+public class GenreDbStorage extends BaseRepository<Genre> implements GenreStorage {
 
     private static final String CREATE_GENRE_QUERY = "INSERT INTO genre(name, description) VALUES (?, ?)";
     private static final String MODIFY_GENRE_QUERY = "UPDATE genre SET name = ?, description = ? WHERE id = ?";
     private static final String DELETE_GENRE_QUERY = "DELETE FROM genre WHERE id = ?";
-    private static final String GET_ALL_GENRE = "SELECT * FROM genre ORDER BY id";
+    private static final String GET_ALL_GENRE_QUERY = "SELECT * FROM genre ORDER BY id";
     private static final String GET_FILM_GENRES_QUERY = "SELECT g.id, g.name, g.description FROM film_genre " +
             "LEFT JOIN genre g ON genre_id = g.id WHERE film_id = ? ORDER BY g.id";
 
+    // Жанры сразу для набора фильмов; список id подставляется в IN (...) частями по IN_LIST_CHUNK_SIZE
+    private static final String GET_FILMS_GENRES_QUERY = "SELECT DISTINCT fg.film_id, g.id, g.name, g.description " +
+            "FROM film_genre fg JOIN genre g ON fg.genre_id = g.id WHERE fg.film_id IN (%s) ORDER BY fg.film_id, g.id";
+
     private static final String FIND_BY_ID_QUERY = "SELECT * FROM genre WHERE id = ?";
     private static final String FIND_BY_NAME_QUERY = "SELECT * FROM genre WHERE name = ?";
 
-    public GenreDbStorage(JdbcTemplate jdbc, RowMapper<Genre> mapper) {
-        super(jdbc, mapper);
+    public GenreDbStorage(JdbcTemplate jdbc, RowMapper<Genre> mapper, QueryMetrics queryMetrics) {
+        super(jdbc, mapper, queryMetrics);
     }
 
+    @Override
     public Genre createGenre(Genre genre) {
         insert(
                 CREATE_GENRE_QUERY,
@@ -36,6 +46,7 @@ public class GenreDbStorage extends BaseRepository<Genre> {
                 .orElseThrow(() -> new InternalServerException("Ошибка при чтении данных genre"));
     }
 
+    @Override
     public Genre modifyGenre(Genre genre) {
         update(
                 MODIFY_GENRE_QUERY,
@@ -46,10 +57,24 @@ public class GenreDbStorage extends BaseRepository<Genre> {
         return genre;
     }
 
+    @Override
     public List<Genre> findByFilmId(Long l) {
         return findMany(GET_FILM_GENRES_QUERY, l);
     }
 
+    @Override
+    public Map<Long, List<Genre>> findByFilmIds(Collection<Long> filmIds) {
+        Map<Long, List<Genre>> result = new HashMap<>();
+        for (List<Long> chunk : inListChunks(filmIds)) {
+            String query = formatInList(GET_FILMS_GENRES_QUERY, chunk.size());
+            timed(query, () -> jdbc.query(query, rs -> {
+                result.computeIfAbsent(rs.getLong("film_id"), id -> new ArrayList<>()).add(mapper.mapRow(rs, 0));
+            }, chunk.toArray()));
+        }
+        return result;
+    }
+
+    @Override
     public Genre deleteGenre(Genre genre) {
         if (delete(DELETE_GENRE_QUERY, genre.getId()))
             return genre;
@@ -57,14 +82,17 @@ public class GenreDbStorage extends BaseRepository<Genre> {
             throw new InternalServerException("Не удалось удалить " + genre);
     }
 
+    @Override
     public List<Genre> getAllGenre() {
-        return findMany(GET_ALL_GENRE);
+        return findMany(GET_ALL_GENRE_QUERY);
     }
 
+    @Override
     public Optional<Genre> findById(long genreId) {
         return findOne(FIND_BY_ID_QUERY, genreId);
     }
 
+    @Override
     public Optional<Genre> findByName(String name) {
         return findOne(FIND_BY_NAME_QUERY, name);
     }
@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+//Таймеры запросов к базе с гистограммой задержек, теги - класс хранилища и имя запроса.
+//Имя запроса - имя константы с его текстом (GET_POPULAR_FILMS_QUERY): константы собираются при создании
+//хранилища, а при выполнении таймер находится по классу хранилища и тексту запроса: одинаковый текст
+//в разных хранилищах учитывается раздельно. У запросов, которые собираются через String.format,
+//таймер ищется по началу текста до первой подстановки.
+//Каждый запрос учитывается и в открытых замерах QueryStats текущего потока
+@Component
+public class QueryMetrics {
+
+    public static final String TIMER_NAME = "filmorate.db.query";
+    private static final String QUERY_SUFFIX = "_QUERY";
+    private static final String PLACEHOLDER = "%s";
+
+    private final MeterRegistry registry;
+    private final Map<Class<?>, Queries> byRepository = new ConcurrentHashMap<>();
+    private final Query other;
+
+    //Без реестра (в срезах тестов без actuator) метрики копятся в собственном реестре
+    public QueryMetrics(ObjectProvider<MeterRegistry> registry) {
+        this.registry = registry.getIfAvailable(SimpleMeterRegistry::new);
+        other = query("unknown", "other");
+    }
+
+    public void register(Class<?> repository) {
+        Queries queries = byRepository.computeIfAbsent(repository, key -> new Queries());
+        ReflectionUtils.doWithLocalFields(repository, field -> {
+            int modifiers = field.getModifiers();
+            if (!Modifier.isStatic(modifiers) || !Modifier.isFinal(modifiers) || field.getType() != String.class
+                    || !field.getName().endsWith(QUERY_SUFFIX)) {
+                return;
+            }
+            ReflectionUtils.makeAccessible(field);
+            String query = (String) ReflectionUtils.getField(field, null);
+            Query timed = query(repository.getSimpleName(), field.getName());
+            int pos = query.indexOf(PLACEHOLDER);
+            if (pos >= 0) {
+                queries.byPrefix().put(query.substring(0, pos), timed);
+            } else {
+                queries.byText().put(query, timed);
+            }
+        });
+    }
+
+    public <R> R record(Class<?> repository, String query, Supplier<R> call) {
+        Query timed = find(repository, query);
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            timed.record(System.nanoTime() - start);
+        }
+    }
+
+    public void record(Class<?> repository, String query, Runnable call) {
+        record(repository, query, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private Query find(Class<?> repository, String query) {
+        Queries queries = byRepository.get(repository);
+        if (queries == null) {
+            return other;
+        }
+        Query timed = queries.byText().get(query);
+        if (timed != null) {
+            return timed;
+        }
+        return queries.byPrefix().entrySet().stream()
+                .filter(entry -> query.startsWith(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(other);
+    }
+
+    private Query query(String repository, String query) {
+        Timer timer = Timer.builder(TIMER_NAME)
+                .description("Время выполнения запроса к базе")
+                .tag("repository", repository)
+                .tag("query", query)
+                .publishPercentileHistogram()
+                .register(registry);
+        return new Query(repository + "." + query, timer);
+    }
+
+    private record Queries(Map<String, Query> byText, Map<String, Query> byPrefix) {
+        Queries() {
+            this(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        }
+    }
+
+    private record Query(String name, Timer timer) {
+        void record(long nanos) {
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+            QueryStats.record(name, nanos);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+//Число запросов к базе и суммарное время их выполнения в текущем потоке между open() и close().
+//Замеры могут быть вложены: запрос учитывается во всех открытых замерах потока
+public class QueryStats implements AutoCloseable {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private final QueryStats parent;
+    //Имя запроса (хранилище.константа) -> сколько раз он выполнен
+    private final Map<String, Integer> queries = new LinkedHashMap<>();
+    private int count;
+    private long nanos;
+
+    private QueryStats(QueryStats parent) {
+        this.parent = parent;
+    }
+
+    public static QueryStats open() {
+        QueryStats stats = new QueryStats(CURRENT.get());
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    //Вне замеров ничего не делает
+    static void record(String query, long nanos) {
+        for (QueryStats stats = CURRENT.get(); stats != null; stats = stats.parent) {
+            stats.count++;
+            stats.nanos += nanos;
+            stats.queries.merge(query, 1, Integer::sum);
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public Map<String, Integer> getQueries() {
+        return Map.copyOf(queries);
+    }
+
+    //Запросы по убыванию числа выполнений: "FilmDbStorage.FIND_BY_ID_QUERY x12, ..."
+    public String describe() {
+        return queries.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .map(entry -> entry.getKey() + " x" + entry.getValue())
+                .collect(Collectors.joining(", "));
+    }
+
+    @Override
+    public void close() {
+        if (parent == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(parent);
+        }
+    }
+}
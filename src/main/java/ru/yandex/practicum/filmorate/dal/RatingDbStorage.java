@@ -16,13 +16,13 @@ public class RatingDbStorage extends BaseRepository<Rating> implements RatingSto
     private static final String CREATE_RATING_QUERY = "INSERT INTO rating(name, description) VALUES (?, ?)";
     private static final String MODIFY_RATING_QUERY = "UPDATE rating SET name = ?, description = ? WHERE id = ?";
     private static final String DELETE_RATING_QUERY = "DELETE FROM rating WHERE id = ?";
-    private static final String GET_ALL_RATING = "SELECT * FROM rating ORDER BY id";
+    private static final String GET_ALL_RATING_QUERY = "SELECT * FROM rating ORDER BY id";
 
     private static final String FIND_BY_ID_QUERY = "SELECT * FROM rating WHERE id = ?";
     private static final String FIND_BY_NAME_QUERY = "SELECT * FROM rating WHERE name = ?";
 
-    public RatingDbStorage(JdbcTemplate jdbc, RowMapper<Rating> mapper) {
-        super(jdbc, mapper);
+    public RatingDbStorage(JdbcTemplate jdbc, RowMapper<Rating> mapper, QueryMetrics queryMetrics) {
+        super(jdbc, mapper, queryMetrics);
     }
 
     @Override
@@ -57,7 +57,7 @@ public class RatingDbStorage extends BaseRepository<Rating> implements RatingSto
 
     @Override
     public List<Rating> getAllRating() {
-        return findMany(GET_ALL_RATING);
+        return findMany(GET_ALL_RATING_QUERY);
     }
 
     @Override
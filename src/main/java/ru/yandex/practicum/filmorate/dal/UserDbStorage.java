@@ -1,106 +1,248 @@
 package ru.yandex.practicum.filmorate.dal;
 
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.DuplicateDataException;
 import ru.yandex.practicum.filmorate.exception.InternalServerException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.SortedAdjacency;
+import ru.yandex.practicum.filmorate.storage.film.LikeIndex;
+import ru.yandex.practicum.filmorate.storage.film.TrendingIndex;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraph;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
+@Slf4j
 @Component("userDbStorage")
 public class UserDbStorage extends BaseRepository<User> implements UserStorage {
 
     private static final String INSERT_USER_QUERY =
             "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)";
     private static final String DELETE_USER_QUERY = "DELETE FROM users WHERE id = ?";
+    // Лайки пользователя удаляются каскадно, поэтому счетчики лайков фильмов уменьшаются заранее
+    private static final String DECREMENT_USERS_LIKES_QUERY = "UPDATE film f SET like_count = like_count - " +
+            "(SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id AND l.user_id = ?) " +
+            "WHERE f.id IN (SELECT film_id FROM likes WHERE user_id = ?)";
+    // Недавние лайки пользователя, которые нужно вычесть из счетчиков трендов
+    private static final String GET_RECENT_USERS_LIKES_QUERY =
+            "SELECT film_id, created_at FROM likes WHERE user_id = ? AND created_at >= ?";
     private static final String UPDATE_USER_QUERY =
             "UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE id = ?";
     private static final String FIND_ALL_USERS_QUERY = "SELECT * FROM users ORDER BY id";
+    // Страницы начинаются поиском по индексу, поэтому их время не зависит от номера страницы.
+    // Сортировка дружбы по обоим столбцам индекса позволяет H2 не сортировать результат
+    private static final String GET_USERS_PAGE_QUERY = "SELECT * FROM users WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String GET_FRIENDS_PAGE_QUERY =
+            "SELECT u.* FROM friends f JOIN users u ON u.id = f.user2_id " +
+                    "WHERE f.user1_id = ? AND f.user2_id > ? ORDER BY f.user1_id, f.user2_id LIMIT ?";
     private static final String GET_FRIENDS_QUERY = "SELECT * FROM users AS u WHERE u.id IN (" +
             "SELECT user2_id FROM friends f WHERE user1_id = ?)";
 
-    private static final String GET_COMMON_FRIENDS_QUERY = "SELECT * FROM users AS u WHERE u.id IN " +
-            "(SELECT user2_id FROM friends f WHERE user1_id = ?) AND u.id IN" +
-            "(SELECT user2_id FROM friends f2 WHERE user1_id = ?) AND u.id NOT IN (?, ?)";
     private static final String DELETE_FRIENDSHIP_QUERY = "DELETE FROM friends WHERE user1_id = ? AND user2_id = ?";
     private static final String SEEK_FRIENDS_PAIR_QUERY =
             "SELECT * FROM users WHERE id IN (SELECT user1_id FROM friends WHERE user1_id = ? AND user2_id = ?)";
     private static final String INSERT_FRIENDSHIP_QUERY =
             "INSERT INTO friends (user1_id, user2_id) VALUES (?, ?)";
+    // Порядок строк совпадает с индексом friends_user1_user2_uq, он же нужен для загрузки графа дружбы
+    private static final String GET_ALL_FRIENDSHIPS_QUERY =
+            "SELECT user1_id, user2_id FROM friends ORDER BY user1_id, user2_id";
     // Константы для поиска юзера по различным данным
     private static final String FIND_BY_ID_QUERY = "SELECT * FROM users WHERE id = ?";
     private static final String FIND_BY_EMAIL_QUERY = "SELECT * FROM users WHERE email = ?";
     private static final String FIND_BY_LOGIN_QUERY = "SELECT * FROM users WHERE login = ?";
+    private static final String FIND_BY_IDS_QUERY = "SELECT * FROM users WHERE id IN (%s)";
+    private static final String FIND_USED_EMAILS_QUERY = "SELECT email FROM users WHERE email IN (%s)";
+    private static final String FIND_USED_LOGINS_QUERY = "SELECT login FROM users WHERE login IN (%s)";
+    // Уникальные ограничения из V4__lookup_indexes.sql
+    private static final String USERS_EMAIL_CONSTRAINT = "users_email_uq";
+    private static final String USERS_LOGIN_CONSTRAINT = "users_login_uq";
 
-    public UserDbStorage(JdbcTemplate jdbc, RowMapper<User> mapper) {
-        super(jdbc, mapper);
+    // Граф дружбы для рекомендаций друзей: загружается из таблицы friends при старте
+    // и дальше обновляется вместе с ней
+    private final FriendGraph friendGraph = new FriendGraph();
+    private final LikeIndex likeIndex;
+    private final TrendingIndex trendingIndex;
+
+    public UserDbStorage(JdbcTemplate jdbc, RowMapper<User> mapper, QueryMetrics queryMetrics,
+                         LikeIndex likeIndex, TrendingIndex trendingIndex) {
+        super(jdbc, mapper, queryMetrics);
+        this.likeIndex = likeIndex;
+        this.trendingIndex = trendingIndex;
+    }
+
+    @PostConstruct
+    public void loadFriendGraph() {
+        SortedAdjacency.Edges edges = new SortedAdjacency.Edges();
+        stream(GET_ALL_FRIENDSHIPS_QUERY, rs -> edges.add(rs.getLong("user1_id"), rs.getLong("user2_id")));
+        friendGraph.load(edges);
+        log.info("\nFriend graph loaded");
     }
 
     //Creation of new user
     @Override
     public User createUser(User user) {
-        insert(
-                INSERT_USER_QUERY,
-                user.getEmail(),
-                user.getLogin(),
-                user.getName(),
-                user.getBirthday()
-        );
+        try {
+            insert(
+                    INSERT_USER_QUERY,
+                    user.getEmail(),
+                    user.getLogin(),
+                    user.getName(),
+                    user.getBirthday()
+            );
+        } catch (DuplicateKeyException e) {
+            throw duplicateOf(user, e);
+        }
         return findByEmail(user.getEmail())
                 .orElseThrow(() -> new InternalServerException("Ошибка при чтении данных пользователя"));
     }
 
+    @Override
+    @Transactional
+    public List<User> createUsers(List<User> users) {
+        List<Long> ids = batchInsert(INSERT_USER_QUERY, users.stream()
+                .map(user -> new Object[]{user.getEmail(), user.getLogin(), user.getName(), user.getBirthday()})
+                .toList());
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(ids.get(i));
+        }
+        log.info("\nSuccessfully created {} users", users.size());
+        return users;
+    }
+
     //Deleting of user
     @Override
+    @Transactional
     public User deleteUser(User user) {
-        if (delete(DELETE_USER_QUERY, user.getId()))
+        timed(DECREMENT_USERS_LIKES_QUERY,
+                () -> jdbc.update(DECREMENT_USERS_LIKES_QUERY, user.getId(), user.getId()));
+        Map<Long, Instant> recentLikes = new HashMap<>();
+        OffsetDateTime from = trendingIndex.windowStart().atOffset(ZoneOffset.UTC);
+        stream(GET_RECENT_USERS_LIKES_QUERY, rs -> recentLikes.put(rs.getLong("film_id"),
+                rs.getObject("created_at", OffsetDateTime.class).toInstant()), user.getId(), from);
+        if (delete(DELETE_USER_QUERY, user.getId())) {
+            // Дружба и лайки пользователя удаляются из таблиц каскадно, из графа и индексов лайков - явно
+            afterCommit(() -> {
+                friendGraph.removeUser(user.getId());
+                likeIndex.removeUser(user.getId());
+                recentLikes.forEach(trendingIndex::remove);
+            });
             return user;
-        else
+        } else
             throw new InternalServerException("Не удалось удалить " + user);
     }
 
     @Override
     public User modifyUser(User user) {
-        update(
-                UPDATE_USER_QUERY,
-                user.getEmail(),
-                user.getLogin(),
-                user.getName(),
-                user.getBirthday(),
-                user.getId()
-        );
+        try {
+            update(
+                    UPDATE_USER_QUERY,
+                    user.getEmail(),
+                    user.getLogin(),
+                    user.getName(),
+                    user.getBirthday(),
+                    user.getId()
+            );
+        } catch (DuplicateKeyException e) {
+            throw duplicateOf(user, e);
+        }
         return user;
     }
 
+    // Проверки UserService и запись не атомарны: запрос, проигравший гонку за e-mail или логин, останавливает
+    // уникальный индекс. Клиент получает тот же ответ, что и при обычной проверке, а не ошибку сервера
+    private static DuplicateDataException duplicateOf(User user, DuplicateKeyException e) {
+        String message = String.valueOf(NestedExceptionUtils.getMostSpecificCause(e).getMessage())
+                .toLowerCase(Locale.ROOT);
+        if (message.contains(USERS_EMAIL_CONSTRAINT)) {
+            return new DuplicateDataException("Email " + user.getEmail() + " is already used.", user);
+        }
+        if (message.contains(USERS_LOGIN_CONSTRAINT)) {
+            return new DuplicateDataException("Login " + user.getLogin() + " is already used.", user);
+        }
+        throw e;
+    }
+
     @Override
     public List<User> getAllUsers() {
         return findMany(FIND_ALL_USERS_QUERY);
     }
 
+    @Override
+    public List<User> getPage(long afterId, int limit) {
+        return findMany(GET_USERS_PAGE_QUERY, afterId, limit);
+    }
+
+    @Override
+    public List<User> getFriendsPage(long userId, long afterId, int limit) {
+        return findMany(GET_FRIENDS_PAGE_QUERY, userId, afterId, limit);
+    }
+
+    @Override
+    public void forEachUser(Consumer<User> action) {
+        forEach(FIND_ALL_USERS_QUERY, action);
+    }
+
     @Override
     public List<User> getFriends(long userId) {
         return findMany(GET_FRIENDS_QUERY, userId);
     }
 
     @Override
-    public User setNewFriendship(Long l1, Long l2) {
-        insert(INSERT_FRIENDSHIP_QUERY, l1, l2);
-        return findById(l2)
-                .orElseThrow(() -> new InternalServerException("Ошибка при чтении данных пользователя" + l2));
+    public void setNewFriendship(Long l1, Long l2) {
+        WriteResult result = insertIfAbsent(INSERT_FRIENDSHIP_QUERY, l1, l2);
+        if (result == WriteResult.DUPLICATE) {
+            log.warn("\nFriends pair {} and {} already exists", l1, l2);
+            throw new DuplicateDataException("Friends pair " + l1 + " and " + l2 + " already exists", "");
+        }
+        if (result == WriteResult.MISSING_REFERENCE) {
+            // Выясняем, какого из пользователей нет, только когда вставка не удалась
+            if (findById(l1).isEmpty())
+                throw new NotFoundException("User id = " + l1 + " not exist", l1);
+            throw new NotFoundException("User id = " + l2 + " not found", l2);
+        }
+        afterCommit(() -> friendGraph.add(l1, l2));
     }
 
     @Override
     public List<User> deleteFriendship(long l1, long l2) {
-        delete(DELETE_FRIENDSHIP_QUERY, l1, l2);
+        if (delete(DELETE_FRIENDSHIP_QUERY, l1, l2))
+            afterCommit(() -> friendGraph.remove(l1, l2));
         return getFriends(l1);
     }
 
+    // Кандидаты ранжируются по графу в памяти, из базы одним запросом читаются только они сами
+    @Override
+    public List<User> getFriendSuggestions(long userId, int count) {
+        List<Long> ids = friendGraph.suggest(userId, count).stream()
+                .map(FriendGraph.Suggestion::userId)
+                .toList();
+        return findByIds(ids);
+    }
+
+    // Пересечение отсортированных массивов друзей из графа, без подзапросов к таблице friends
     @Override
     public List<User> getCommonFriends(long l1, long l2) {
-        return findMany(GET_COMMON_FRIENDS_QUERY, l1, l2, l1, l2);
+        return findByIds(Arrays.stream(friendGraph.commonFriends(l1, l2)).boxed().toList());
     }
 
     public Optional<User> findById(long userId) {
@@ -115,6 +257,29 @@ public class UserDbStorage extends BaseRepository<User> implements UserStorage {
         return findOne(FIND_BY_LOGIN_QUERY, login);
     }
 
+    private List<User> findByIds(List<Long> ids) {
+        return findByIds(FIND_BY_IDS_QUERY, ids, User::getId);
+    }
+
+    @Override
+    public Set<String> findUsedEmails(Collection<String> emails) {
+        return findUsed(FIND_USED_EMAILS_QUERY, emails);
+    }
+
+    @Override
+    public Set<String> findUsedLogins(Collection<String> logins) {
+        return findUsed(FIND_USED_LOGINS_QUERY, logins);
+    }
+
+    private Set<String> findUsed(String query, Collection<String> values) {
+        if (values.isEmpty()) {
+            return Set.of();
+        }
+        String formatted = formatInList(query, values.size());
+        return new HashSet<>(timed(formatted,
+                () -> jdbc.queryForList(formatted, String.class, values.toArray())));
+    }
+
     public boolean isFriendPairExist(long l1, long l2) {
         return findOne(SEEK_FRIENDS_PAIR_QUERY, l1, l2).isPresent();
     }
@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.dal;
+
+// Результат вставки связи (лайка, дружбы) одной командой
+public enum WriteResult {
+    CREATED,
+    // Нарушено ограничение уникальности - такая связь уже есть
+    DUPLICATE,
+    // Нарушен внешний ключ - одна из связываемых записей не существует
+    MISSING_REFERENCE
+}
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.dal.mappers;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.model.Rating;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+//Маппер для выборок film JOIN rating: рейтинг МПА читается из той же строки, без отдельного запроса
+@Component
+public class FilmDtoRowMapper implements RowMapper<FilmDto> {
+    @Override
+    public FilmDto mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        FilmDto dto = new FilmDto();
+        dto.setId(resultSet.getLong("id"));
+        dto.setName(resultSet.getString("name"));
+        dto.setDescription(resultSet.getString("description"));
+        dto.setDuration(resultSet.getLong("duration"));
+        dto.setReleaseDate(resultSet.getDate("release_date").toLocalDate());
+        long mpaId = resultSet.getLong("mpa");
+        if (!resultSet.wasNull()) {
+            dto.setMpa(new Rating(mpaId, resultSet.getString("mpa_name"), resultSet.getString("mpa_description")));
+        }
+        return dto;
+    }
+}
@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+//Результат обработки одной строки пакетной загрузки
+@Data
+@AllArgsConstructor
+public class BulkResult {
+
+    private long line; //номер строки во входном потоке, начиная с 1
+
+    private Status status;
+
+    private Long id; //id созданной записи
+
+    private String error; //причина отказа
+
+    public enum Status {
+        CREATED,
+        REJECTED
+    }
+
+    public static BulkResult created(long line, long id) {
+        return new BulkResult(line, Status.CREATED, id, null);
+    }
+
+    public static BulkResult rejected(long line, String error) {
+        return new BulkResult(line, Status.REJECTED, null, error);
+    }
+}
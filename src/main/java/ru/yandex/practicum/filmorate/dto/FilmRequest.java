@@ -26,6 +26,7 @@ public class FilmRequest {
     @Size(message = "Слишком длинное название фильма (более 200 символов)", max = 200)
     private String name;
 
+    @NotNull(message = "Описание фильма должно быть указано")
     @Size(message = "Слишком длинное описание фильма (более 200 символов)", max = 200)
     private String description;
 
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+//Страница списка при постраничной выдаче по курсору
+@Data
+@AllArgsConstructor
+public class Page<T> {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+    //Заголовок ответа с курсором следующей страницы
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private List<T> items;
+
+    private String nextCursor; //null на последней странице
+}
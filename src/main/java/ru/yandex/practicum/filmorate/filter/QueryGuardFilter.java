@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.yandex.practicum.filmorate.dal.QueryStats;
+
+import java.io.IOException;
+import java.time.Duration;
+
+//Считает запросы к базе и их время за HTTP-запрос. Запрос сверх порогов попадает в журнал вместе с именами
+//запросов к базе - так видны N+1 и лишние проверки. В тестах с filmorate.query-guard.fail-on-exceed=true
+//такой запрос завершается исключением, и тест падает.
+//Исключение бросается уже после того, как ответ записан и отправлен: на работающем сервере клиент получит
+//обычный ответ, а исключение только попадет в журнал контейнера. Поэтому fail-on-exceed полезен только
+//в тестах через MockMvc, которые получают исключение из фильтра
+@Slf4j
+@Component
+public class QueryGuardFilter extends OncePerRequestFilter {
+
+    private final int maxQueries;
+    private final Duration maxDbTime;
+    private final boolean failOnExceed;
+
+    public QueryGuardFilter(@Value("${filmorate.query-guard.max-queries:20}") int maxQueries,
+                            @Value("${filmorate.query-guard.max-db-time:200ms}") Duration maxDbTime,
+                            @Value("${filmorate.query-guard.fail-on-exceed:false}") boolean failOnExceed) {
+        this.maxQueries = maxQueries;
+        this.maxDbTime = maxDbTime;
+        this.failOnExceed = failOnExceed;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryStats stats = QueryStats.open();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            stats.close();
+        }
+        if (stats.getCount() <= maxQueries && stats.getNanos() <= maxDbTime.toNanos()) {
+            return;
+        }
+        String message = String.format("%s %s: %d запросов к базе за %d мс (пороги %d и %d мс): %s",
+                request.getMethod(), request.getRequestURI(), stats.getCount(),
+                Duration.ofNanos(stats.getNanos()).toMillis(), maxQueries, maxDbTime.toMillis(), stats.describe());
+        if (failOnExceed) {
+            throw new IllegalStateException(message);
+        }
+        log.warn("\n{}", message);
+    }
+}
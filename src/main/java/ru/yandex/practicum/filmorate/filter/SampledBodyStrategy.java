@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.filter;
+
+import jakarta.servlet.ServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Strategy;
+import org.zalando.logbook.attributes.AttributeExtractor;
+import org.zalando.logbook.attributes.HttpAttributes;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+//Logbook пишет в журнал каждый запрос, а тела запроса и ответа - только у доли запросов
+//filmorate.logbook.body-sample-rate. Решение принимается в process до чтения тела: у невыбранного запроса
+//logbook не копит в памяти ни тело запроса, ни тело ответа.
+//Решение сохраняется в атрибуте запроса сервлета, а extract переносит его в атрибуты запроса logbook -
+//только их видит обработка ответа, поэтому тела запроса и ответа попадают в журнал вместе
+@Component
+public class SampledBodyStrategy implements Strategy, AttributeExtractor {
+
+    public static final String SAMPLED_ATTRIBUTE = "bodySampled";
+    private static final int SCALE = 10_000;
+
+    private final int threshold;
+
+    public SampledBodyStrategy(@Value("${filmorate.logbook.body-sample-rate:0.01}") double rate) {
+        this.threshold = (int) Math.round(Math.max(0, Math.min(rate, 1)) * SCALE);
+    }
+
+    @Override
+    public HttpRequest process(HttpRequest request) throws IOException {
+        boolean sampled = ThreadLocalRandom.current().nextInt(SCALE) < threshold;
+        if (request instanceof ServletRequest servletRequest) {
+            servletRequest.setAttribute(SAMPLED_ATTRIBUTE, sampled);
+        }
+        return sampled ? request.withBody() : request.withoutBody();
+    }
+
+    @Override
+    public HttpAttributes extract(HttpRequest request) {
+        if (request instanceof ServletRequest servletRequest
+                && servletRequest.getAttribute(SAMPLED_ATTRIBUTE) instanceof Boolean sampled) {
+            return HttpAttributes.of(SAMPLED_ATTRIBUTE, sampled);
+        }
+        return HttpAttributes.EMPTY;
+    }
+
+    @Override
+    public HttpResponse process(HttpRequest request, HttpResponse response) throws IOException {
+        return isSampled(request) ? response.withBody() : response.withoutBody();
+    }
+
+    boolean isSampled(HttpRequest request) {
+        return Boolean.TRUE.equals(request.getAttributes().get(SAMPLED_ATTRIBUTE));
+    }
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.mapper;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ru.yandex.practicum.filmorate.dto.Page;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+//Курсор страницы - id последней выданной записи, упакованный в непрозрачную для клиента строку
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CursorMapper {
+    private static final String PREFIX = "id:";
+
+    public static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    //Хранилище читает limit + 1 записей: лишняя запись означает, что есть следующая страница
+    public static <T> Page<T> toPage(List<T> fetched, int limit, ToLongFunction<T> idOf) {
+        if (fetched.size() <= limit) {
+            return new Page<>(fetched, null);
+        }
+        List<T> items = fetched.subList(0, limit);
+        return new Page<>(items, encode(idOf.applyAsLong(items.getLast())));
+    }
+
+    //Без курсора выдача начинается с первой записи
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (value.startsWith(PREFIX)) {
+                return Long.parseLong(value.substring(PREFIX.length()));
+            }
+        } catch (IllegalArgumentException ignored) {
+            //NumberFormatException тоже наследник IllegalArgumentException
+        }
+        throw new ValidationException("Некорректный курсор страницы", cursor);
+    }
+}
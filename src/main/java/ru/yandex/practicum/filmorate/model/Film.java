@@ -33,7 +33,7 @@ public class Film {
     private Integer count;
 
     //Множество id лайкнувших юзеров в порядке увеличения id
-    private Set<Long> usersLikes = new TreeSet<>((l1, l2) -> Math.toIntExact(l1 - l2));
+    private Set<Long> usersLikes = new TreeSet<>();
 
     public Film(String name, String description, LocalDate localDate, long duration, long mpaId) {
         this.name = name;
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.util.Arrays;
+
+//Окно рейтинга трендов: лайки считаются только за последние hours часов
+@Getter
+@RequiredArgsConstructor
+public enum TrendingWindow {
+    DAY("24h", 24),
+    WEEK("7d", 7 * 24);
+
+    private final String name;
+    private final int hours;
+
+    public static TrendingWindow from(String name) {
+        return Arrays.stream(values())
+                .filter(window -> window.name.equals(name))
+                .findFirst()
+                .orElseThrow(() -> new ValidationException("Неизвестное окно рейтинга", name));
+    }
+}
@@ -24,7 +24,7 @@ public class User {
     private LocalDate birthday; //дата рождения
 
     //Множество id друзей в порядке увеличения id
-    private Set<Long> friends = new TreeSet<>((l1, l2) -> Math.toIntExact(l1 - l2));
+    private Set<Long> friends = new TreeSet<>();
 
     public User(String email, String login, String name, LocalDate birthday) {
         this.email = email;
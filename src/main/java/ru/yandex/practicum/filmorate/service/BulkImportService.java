@@ -0,0 +1,251 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.adapters.LocalDateAdapter;
+import ru.yandex.practicum.filmorate.dto.BulkResult;
+import ru.yandex.practicum.filmorate.dto.FilmRequest;
+import ru.yandex.practicum.filmorate.dto.UserRequest;
+import ru.yandex.practicum.filmorate.mapper.UserMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.rating.RatingStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+//Пакетная загрузка фильмов и пользователей из потока NDJSON (один JSON-объект на строку).
+//Строки читаются и сохраняются порциями по CHUNK_SIZE, результаты каждой порции сразу пишутся в ответ,
+//поэтому расход памяти не зависит от размера загружаемого файла
+@Slf4j
+@Service
+public class BulkImportService {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
+            .create();
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final RatingStorage ratingStorage;
+    private final GenreStorage genreStorage;
+
+    @Autowired
+    public BulkImportService(@Qualifier("filmDbStorage") FilmStorage filmStorage,
+                             @Qualifier("userDbStorage") UserStorage userStorage,
+                             @Qualifier("cachedRatingStorage") RatingStorage ratingStorage,
+                             @Qualifier("cachedGenreStorage") GenreStorage genreStorage) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.ratingStorage = ratingStorage;
+        this.genreStorage = genreStorage;
+    }
+
+    public void importFilms(InputStream in, OutputStream out) throws IOException {
+        importLines(in, out, FilmRequest.class, this::saveFilms);
+    }
+
+    public void importUsers(InputStream in, OutputStream out) throws IOException {
+        importLines(in, out, UserRequest.class, this::saveUsers);
+    }
+
+    private <T> void importLines(InputStream in, OutputStream out, Class<T> type,
+                                 BiConsumer<List<Line<T>>, List<BulkResult>> saver) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        List<Line<T>> chunk = new ArrayList<>(CHUNK_SIZE);
+        List<BulkResult> results = new ArrayList<>(CHUNK_SIZE);
+        long lineNumber = 0;
+        long created = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            lineNumber++;
+            if (text.isBlank()) {
+                continue;
+            }
+            parseLine(lineNumber, text, type, chunk, results);
+            if (chunk.size() + results.size() >= CHUNK_SIZE) {
+                created += writeChunk(chunk, results, saver, writer);
+            }
+        }
+        created += writeChunk(chunk, results, saver, writer);
+        log.info("\nBulk import of {}: {} lines read, {} records created", type.getSimpleName(), lineNumber, created);
+    }
+
+    private <T> void parseLine(long lineNumber, String text, Class<T> type,
+                               List<Line<T>> chunk, List<BulkResult> results) {
+        T request;
+        try {
+            request = gson.fromJson(text, type);
+        } catch (JsonParseException | DateTimeParseException e) {
+            results.add(BulkResult.rejected(lineNumber, "Некорректный JSON: " + e.getMessage()));
+            return;
+        }
+        //Строка "null" разбирается без ошибки, но объекта в ней нет
+        if (request == null) {
+            results.add(BulkResult.rejected(lineNumber, "Некорректный JSON: ожидается объект"));
+            return;
+        }
+        String error = VALIDATOR.validate(request).stream()
+                .map(ConstraintViolation::getMessage)
+                .findFirst()
+                .orElse(null);
+        if (error == null) {
+            chunk.add(new Line<>(lineNumber, request));
+        } else {
+            results.add(BulkResult.rejected(lineNumber, error));
+        }
+    }
+
+    //Сохраняет порцию и пишет в ответ результаты ее строк в порядке номеров строк
+    private <T> long writeChunk(List<Line<T>> chunk, List<BulkResult> results,
+                                BiConsumer<List<Line<T>>, List<BulkResult>> saver, Writer writer) throws IOException {
+        if (!chunk.isEmpty()) {
+            saver.accept(chunk, results);
+        }
+        results.sort(Comparator.comparingLong(BulkResult::getLine));
+        long created = 0;
+        for (BulkResult result : results) {
+            if (result.getStatus() == BulkResult.Status.CREATED) {
+                created++;
+            }
+            writer.write(gson.toJson(result));
+            writer.write('\n');
+        }
+        writer.flush();
+        chunk.clear();
+        results.clear();
+        return created;
+    }
+
+    private void saveFilms(List<Line<FilmRequest>> chunk, List<BulkResult> results) {
+        List<Line<FilmRequest>> valid = new ArrayList<>(chunk.size());
+        for (Line<FilmRequest> line : chunk) {
+            String error = checkReferences(line.request());
+            if (error == null) {
+                valid.add(line);
+            } else {
+                results.add(BulkResult.rejected(line.number(), error));
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        try {
+            List<Film> films = filmStorage.addNewFilms(valid.stream().map(Line::request).toList());
+            for (int i = 0; i < valid.size(); i++) {
+                results.add(BulkResult.created(valid.get(i).number(), films.get(i).getId()));
+            }
+        } catch (DataAccessException e) {
+            saveOneByOne(valid, valid.stream().map(Line::request).toList(),
+                    request -> filmStorage.addNewFilms(List.of(request)).getFirst().getId(), results, e);
+        }
+    }
+
+    //МПА и жанры проверяются по кэшу справочников. В базу уходит только первый поиск незнакомого id,
+    //дальше кэш помнит, что такого id нет
+    private String checkReferences(FilmRequest request) {
+        Long mpaId = request.getMpa().getId();
+        if (mpaId == null || ratingStorage.findById(mpaId).isEmpty()) {
+            return "Указан несуществующий рейтинг МПА";
+        }
+        if (request.getGenres() != null) {
+            for (Genre genre : request.getGenres()) {
+                if (genre == null || genre.getId() == null || genreStorage.findById(genre.getId()).isEmpty()) {
+                    return "Ошибочный id жанра";
+                }
+            }
+        }
+        return null;
+    }
+
+    private void saveUsers(List<Line<UserRequest>> chunk, List<BulkResult> results) {
+        //Занятые email и логины запрашиваются одним запросом на порцию и пополняются по мере проверки,
+        //чтобы отсечь и повторы внутри самой загрузки
+        Set<String> usedEmails = new HashSet<>(userStorage.findUsedEmails(
+                chunk.stream().map(line -> line.request().getEmail()).toList()));
+        Set<String> usedLogins = new HashSet<>(userStorage.findUsedLogins(
+                chunk.stream().map(line -> line.request().getLogin()).toList()));
+        List<Line<UserRequest>> valid = new ArrayList<>(chunk.size());
+        List<User> users = new ArrayList<>(chunk.size());
+        for (Line<UserRequest> line : chunk) {
+            UserRequest request = line.request();
+            if (usedEmails.contains(request.getEmail())) {
+                results.add(BulkResult.rejected(line.number(), "Email " + request.getEmail() + " is already used."));
+            } else if (usedLogins.contains(request.getLogin())) {
+                results.add(BulkResult.rejected(line.number(), "Login " + request.getLogin() + " is already used."));
+            } else {
+                usedEmails.add(request.getEmail());
+                usedLogins.add(request.getLogin());
+                User user = UserMapper.mapToUser(request);
+                if (!request.hasName())
+                    user.setName(user.getLogin());
+                valid.add(line);
+                users.add(user);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        try {
+            List<User> created = userStorage.createUsers(users);
+            for (int i = 0; i < valid.size(); i++) {
+                results.add(BulkResult.created(valid.get(i).number(), created.get(i).getId()));
+            }
+        } catch (DataAccessException e) {
+            saveOneByOne(valid, users, user -> userStorage.createUsers(List.of(user)).getFirst().getId(), results, e);
+        }
+    }
+
+    //Порция сохраняется в одной транзакции, поэтому при ошибке базы не сохраняется ни одна ее строка.
+    //Тогда строки порции сохраняются по одной, чтобы ошибка одной строки не отменяла остальные
+    private <T, R> void saveOneByOne(List<Line<T>> lines, List<R> records, Function<R, Long> saver,
+                                     List<BulkResult> results, DataAccessException e) {
+        log.warn("\nChunk of {} lines is not saved, saving line by line: {}", lines.size(), e.getMessage());
+        for (int i = 0; i < lines.size(); i++) {
+            long number = lines.get(i).number();
+            try {
+                results.add(BulkResult.created(number, saver.apply(records.get(i))));
+            } catch (DataAccessException lineError) {
+                results.add(BulkResult.rejected(number,
+                        "Строка не сохранена: " + lineError.getMostSpecificCause().getMessage()));
+            }
+        }
+    }
+
+    private record Line<T>(long number, T request) {
+    }
+}
@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.adapters.LocalDateAdapter;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.UserDto;
+import ru.yandex.practicum.filmorate.mapper.UserMapper;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+//Выгрузка фильмов и пользователей в NDJSON (один JSON-объект на строку).
+//Записи читаются из курсора по одной и сразу пишутся в поток ответа, поэтому расход памяти
+//не зависит от размера таблиц
+@Slf4j
+@Service
+public class ExportService {
+
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
+            .create();
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+
+    @Autowired
+    public ExportService(@Qualifier("filmDbStorage") FilmStorage filmStorage,
+                         @Qualifier("userDbStorage") UserStorage userStorage) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+    }
+
+    public void exportFilms(OutputStream out) throws IOException {
+        NdjsonWriter<FilmDto> writer = new NdjsonWriter<>(out);
+        try {
+            filmStorage.forEachWithDetails(writer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        log.info("\nExported {} films", writer.count);
+    }
+
+    public void exportUsers(OutputStream out) throws IOException {
+        NdjsonWriter<UserDto> writer = new NdjsonWriter<>(out);
+        try {
+            userStorage.forEachUser(user -> writer.accept(UserMapper.mapToUserDto(user)));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        log.info("\nExported {} users", writer.count);
+    }
+
+    //Пишет каждую запись отдельной строкой; ошибка записи (например, клиент закрыл соединение)
+    //прерывает чтение из базы
+    private class NdjsonWriter<T> implements Consumer<T> {
+        private final Writer writer;
+        private long count;
+
+        NdjsonWriter(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void accept(T value) {
+            try {
+                writer.write(gson.toJson(value));
+                writer.write('\n');
+                count++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void flush() throws IOException {
+            writer.flush();
+        }
+    }
+}
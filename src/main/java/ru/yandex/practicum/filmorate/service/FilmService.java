@@ -4,24 +4,28 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import ru.yandex.practicum.filmorate.dal.GenreDbStorage;
 import ru.yandex.practicum.filmorate.dto.FilmDto;
 import ru.yandex.practicum.filmorate.dto.FilmRequest;
-import ru.yandex.practicum.filmorate.exception.DuplicateDataException;
+import ru.yandex.practicum.filmorate.dto.Page;
 import ru.yandex.practicum.filmorate.exception.InternalServerException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.mapper.CursorMapper;
 import ru.yandex.practicum.filmorate.mapper.FilmMapper;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.FilmGenre.FilmGenreStorage;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
 import ru.yandex.practicum.filmorate.storage.rating.RatingStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Slf4j
@@ -32,19 +36,19 @@ public class FilmService {
     private final UserStorage userStorage;
     private final FilmGenreStorage filmGenreStorage;
     private final RatingStorage ratingStorage;
-    private final GenreDbStorage genreDbStorage;
+    private final GenreStorage genreStorage;
 
     @Autowired
     public FilmService(@Qualifier("filmDbStorage") FilmStorage filmStorage,
                        @Qualifier("userDbStorage") UserStorage userStorage,
                        @Qualifier("filmGenreDbStorage") FilmGenreStorage filmGenreStorage,
-                       @Qualifier("ratingDbStorage") RatingStorage ratingStorage,
-                       GenreDbStorage genreDbStorage) {
+                       @Qualifier("cachedRatingStorage") RatingStorage ratingStorage,
+                       @Qualifier("cachedGenreStorage") GenreStorage genreStorage) {
         this.filmStorage = filmStorage;
         this.userStorage = userStorage;
         this.filmGenreStorage = filmGenreStorage;
         this.ratingStorage = ratingStorage;
-        this.genreDbStorage = genreDbStorage;
+        this.genreStorage = genreStorage;
     }
 
     public FilmDto addNewFilm(FilmRequest request) {
@@ -55,21 +59,21 @@ public class FilmService {
         if (request.getGenres() != null) {
             for (Genre g : request.getGenres()) {
                 genreSet.add(
-                        genreDbStorage.findById(g.getId())
+                        genreStorage.findById(g.getId())
                                 .orElseThrow(() -> new ValidationException("Ошибочный id жанра", request))
                 );
             }
         }
-        log.warn("\nSet of Long {}", genreSet);
+        log.debug("\nSet of Long {}", genreSet);
         Film film = filmStorage.addNewFilm(request);
         filmGenreStorage.addFilmGenres(film.getId(), genreSet.stream().map(Genre::getId).toList());
-        List<Genre> genres = genreDbStorage.findByFilmId(film.getId());
+        List<Genre> genres = genreStorage.findByFilmId(film.getId());
         return FilmMapper.mapToFilmDtoWithGenre(film, mpa, genres);
     }
 
     public FilmDto modifyFilm(FilmRequest request) {
         Long id = request.getId();
-        log.warn("Value of {}", id);
+        log.debug("\nValue of {}", id);
         filmStorage.findById(id).orElseThrow(() -> new NotFoundException("Film " + request + " not found", request));
         Rating mpa = ratingStorage.findById(request.getMpa().getId())
                 .orElseThrow(() -> new ValidationException("Указан несуществующий рейтинг МПА", request));
@@ -81,7 +85,7 @@ public class FilmService {
             genreSet.addAll(request.getGenres());
             filmGenreStorage.addFilmGenres(film.getId(), genreSet.stream().map(Genre::getId).toList());
         }
-        List<Genre> genres = genreDbStorage.findByFilmId(film.getId());
+        List<Genre> genres = genreStorage.findByFilmId(film.getId());
         return FilmMapper.mapToFilmDtoWithGenre(filmStorage.changeFilm(film), mpa, genres);
     }
 
@@ -94,43 +98,64 @@ public class FilmService {
     }
 
     public List<FilmDto> getAll() {
-        return filmStorage.getAll().stream()
-                .map(film -> FilmMapper.mapToFilmDto(film, ratingStorage.findById(film.getMpaId())
-                        .orElseThrow(() -> new InternalServerException("Не удалось прочитать МПА"))))
-                .toList();
+        return filmStorage.getAllWithDetails();
     }
 
     public FilmDto getFilm(long id) {
         Film film = filmStorage.findById(id).orElseThrow(() ->
                 new NotFoundException("Film id " + id + " not found", id));
-        log.warn("Found {}", film);
+        log.debug("\nFound {}", film);
         Rating mpa = ratingStorage.findById(film.getMpaId())
                 .orElseThrow(() -> new InternalServerException("Не удалось прочитать МПА"));
-        List<Genre> genres = genreDbStorage.findByFilmId(film.getId());
+        List<Genre> genres = genreStorage.findByFilmId(film.getId());
         return FilmMapper.mapToFilmDtoWithGenre(film, mpa, genres);
     }
 
+    public Page<FilmDto> getFilmsPage(String after, int limit) {
+        Page<Film> page = CursorMapper.toPage(filmStorage.getPage(CursorMapper.decode(after), limit + 1),
+                limit, Film::getId);
+        return new Page<>(mapWithDetails(page.getItems()), page.getNextCursor());
+    }
+
     public List<FilmDto> getPopularFilms(long count) {
-        return filmStorage.getPopular(count).stream()
-                .map(film -> FilmMapper.mapToFilmDto(film, ratingStorage.findById(film.getMpaId())
-                        .orElseThrow(() -> new InternalServerException("Не удалось прочитать МПА"))))
-                .toList();
+        return mapWithDetails(filmStorage.getPopular(count));
+    }
 
+    public List<FilmDto> getTrendingFilms(String window, int count) {
+        return mapWithDetails(filmStorage.getTrending(TrendingWindow.from(window), count));
     }
 
-    public FilmDto addUsersLike(Long filmId, Long userId) {
-        Film film = filmStorage.findById(filmId).orElseThrow(() ->
-                new NotFoundException("Film " + filmId + " not found", filmId));
+    public List<FilmDto> getRecommendations(long userId, int count) {
         userStorage.findById(userId).orElseThrow(() ->
                 new NotFoundException("User id = " + userId + " not exist", userId));
-        if (filmStorage.findFilmWithLike(filmId, userId).isPresent()) {
-            log.warn("\nLike of film {} by user {} already exists", filmId, userId);
-            throw new DuplicateDataException("Like of film " + filmId + " by user " + userId +
-                    " already exists.", filmId);
-        }
+        return mapWithDetails(filmStorage.getRecommendations(userId, count));
+    }
+
+    public List<FilmDto> getFilmsLikedByFriends(long userId, int count) {
+        userStorage.findById(userId).orElseThrow(() ->
+                new NotFoundException("User id = " + userId + " not exist", userId));
+        List<Long> friendIds = userStorage.getFriends(userId).stream()
+                .map(User::getId)
+                .toList();
+        return mapWithDetails(filmStorage.getLikedByUsers(friendIds, count));
+    }
+
+    //МПА берутся из кэша, жанры всех фильмов читаются одним запросом
+    private List<FilmDto> mapWithDetails(List<Film> films) {
+        Map<Long, List<Genre>> genres = genreStorage.findByFilmIds(films.stream().map(Film::getId).toList());
+        return films.stream()
+                .map(film -> FilmMapper.mapToFilmDtoWithGenre(film, ratingStorage.findById(film.getMpaId())
+                                .orElseThrow(() -> new InternalServerException("Не удалось прочитать МПА")),
+                        genres.getOrDefault(film.getId(), List.of())))
+                .toList();
+    }
+
+    public FilmDto addUsersLike(Long filmId, Long userId) {
+        // Наличие фильма и пользователя и отсутствие дубликата проверяются самой вставкой лайка
+        Film film = filmStorage.addLike(filmId, userId);
         Rating mpa = ratingStorage.findById(film.getMpaId())
                 .orElseThrow(() -> new InternalServerException("Не удалось прочитать МПА"));
-        return FilmMapper.mapToFilmDto(filmStorage.addLike(filmId, userId), mpa);
+        return FilmMapper.mapToFilmDto(film, mpa);
     }
 
     public FilmDto deleteUsersLike(Long filmId, Long userId) {
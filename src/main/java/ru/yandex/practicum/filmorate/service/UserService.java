@@ -4,10 +4,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.dto.Page;
 import ru.yandex.practicum.filmorate.dto.UserDto;
 import ru.yandex.practicum.filmorate.dto.UserRequest;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.DuplicateDataException;
+import ru.yandex.practicum.filmorate.mapper.CursorMapper;
 import ru.yandex.practicum.filmorate.mapper.UserMapper;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
@@ -26,12 +28,7 @@ public class UserService {
     }
 
     public List<UserDto> makeNewFriendsPair(Long l1, Long l2) {
-        userStorage.findById(l1).orElseThrow(() -> new NotFoundException("User id = " + l1 + " not exist", l1));
-        userStorage.findById(l2).orElseThrow(() -> new NotFoundException("User id = " + l2 + " not found", l2));
-        if (userStorage.isFriendPairExist(l1, l2)) {
-            log.warn("\nFriends pair {} and {} already exists", l1, l2);
-            throw new DuplicateDataException("Friends pair " + l1 + " and " + l2 + " already exists", "");
-        }
+        // Наличие пользователей и отсутствие дубликата проверяются самой вставкой дружбы
         userStorage.setNewFriendship(l1, l2);
         return userStorage.getFriends(l1).stream()
                 .map(UserMapper::mapToUserDto)
@@ -46,6 +43,13 @@ public class UserService {
                 .toList();
     }
 
+    public List<UserDto> getFriendSuggestions(Long l, int count) {
+        userStorage.findById(l).orElseThrow(() -> new NotFoundException("User id = " + l + " not exist", l));
+        return userStorage.getFriendSuggestions(l, count).stream()
+                .map(UserMapper::mapToUserDto)
+                .toList();
+    }
+
     public List<UserDto> getFriends(Long l) {
         userStorage.findById(l).orElseThrow(() -> new NotFoundException("User id = " + l + " not exist", l));
         return userStorage.getFriends(l).stream()
@@ -53,6 +57,19 @@ public class UserService {
                 .toList();
     }
 
+    public Page<UserDto> getFriendsPage(Long l, String after, int limit) {
+        userStorage.findById(l).orElseThrow(() -> new NotFoundException("User id = " + l + " not exist", l));
+        Page<User> page = CursorMapper.toPage(userStorage.getFriendsPage(l, CursorMapper.decode(after), limit + 1),
+                limit, User::getId);
+        return new Page<>(page.getItems().stream().map(UserMapper::mapToUserDto).toList(), page.getNextCursor());
+    }
+
+    public Page<UserDto> getUsersPage(String after, int limit) {
+        Page<User> page = CursorMapper.toPage(userStorage.getPage(CursorMapper.decode(after), limit + 1),
+                limit, User::getId);
+        return new Page<>(page.getItems().stream().map(UserMapper::mapToUserDto).toList(), page.getNextCursor());
+    }
+
     public List<UserDto> getAllUsers() {
         return userStorage.getAllUsers().stream()
                 .map(UserMapper::mapToUserDto)
@@ -80,11 +97,11 @@ public class UserService {
         User testUser = userStorage.findById(id)
                 .orElseThrow(() -> new NotFoundException("Пользователь id = " + id + " не найден ", request));
         testUser = userStorage.findByEmail(request.getEmail()).orElse(null);
-        if ((testUser != null) && (testUser.getId() != id)) {
+        if ((testUser != null) && !id.equals(testUser.getId())) {
             throw new DuplicateDataException("Email " + request.getEmail() + " is already used.", request);
         }
         testUser = userStorage.findByLogin(request.getLogin()).orElse(null);
-        if ((testUser != null) && (testUser.getId() != id)) {
+        if ((testUser != null) && !id.equals(testUser.getId())) {
             throw new DuplicateDataException("Login " + request.getLogin() + " is already used.", request);
         }
         User user = UserMapper.mapToUser(request);
@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.storage.FilmGenre;
 import ru.yandex.practicum.filmorate.model.FilmGenre;
 
 import java.util.List;
+import java.util.Map;
 
 public interface FilmGenreStorage {
 
@@ -10,5 +11,8 @@ public interface FilmGenreStorage {
 
     void addFilmGenres(Long id, List<Long> values);
 
+    //Жанры нескольких фильмов одной записью: id фильма -> id его жанров
+    void addFilmsGenres(Map<Long, List<Long>> genresByFilm);
+
     void deleteGenreOfFilms(long id);
 }
@@ -2,45 +2,44 @@ package ru.yandex.practicum.filmorate.storage.FilmGenre;
 
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.FilmGenre;
+import ru.yandex.practicum.filmorate.storage.IdSequence;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component("inMemoryFilmGenreStorage")
 public class InMemoryFilmGenreStorage implements FilmGenreStorage {
 
-    private Map<Long, FilmGenre> filmGenres = new HashMap<>();
+    private final Map<Long, FilmGenre> filmGenres = new ConcurrentHashMap<>();
+    private final IdSequence idSequence = new IdSequence();
 
     @Override
     public List<FilmGenre> getGenresOfFilm(Long id) {
         return filmGenres.values().stream()
-                .filter(filmGenre -> (filmGenre.getFilmId() == id))
+                .filter(filmGenre -> filmGenre.getFilmId().equals(id))
                 .toList();
     }
 
     public void addFilmGenres(Long id, List<Long> values) {
-        values.forEach(i -> {
-            Long fgId = getGenreNextId();
-            FilmGenre fg = new FilmGenre(fgId, id, i);
-            filmGenres.put(fgId, fg);
-        });
+        long fgId = idSequence.reserve(values.size());
+        for (Long genreId : values) {
+            filmGenres.put(fgId, new FilmGenre(fgId, id, genreId));
+            fgId++;
+        }
+    }
+
+    @Override
+    public void addFilmsGenres(Map<Long, List<Long>> genresByFilm) {
+        genresByFilm.forEach(this::addFilmGenres);
     }
 
     @Override
     public void deleteGenreOfFilms(long id) {
-        for (Long i : filmGenres.keySet()) {
-            if (filmGenres.get(i).getFilmId() == id)
-                filmGenres.remove(i);
-        }
+        filmGenres.values().removeIf(filmGenre -> filmGenre.getFilmId() == id);
     }
 
     public long getGenreNextId() {
-        long currentMaxId = filmGenres.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0);
-        return ++currentMaxId;
+        return idSequence.next();
     }
 }
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+//Последовательность id для хранилищ в памяти: выдача id и резервирование диапазона за O(1)
+public class IdSequence {
+
+    private final AtomicLong lastId = new AtomicLong();
+
+    public long next() {
+        return lastId.incrementAndGet();
+    }
+
+    //Резервирует count идущих подряд id и возвращает первый из них
+    public long reserve(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Negative count of ids: " + count);
+        }
+        return lastId.getAndAdd(count) + 1;
+    }
+
+    //Сдвигает последовательность за уже занятый id, например при загрузке существующих данных
+    public void seed(long usedId) {
+        lastId.accumulateAndGet(usedId, Math::max);
+    }
+}
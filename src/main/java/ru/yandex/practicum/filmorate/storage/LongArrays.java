@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.Arrays;
+
+//Операции над отсортированными по возрастанию массивами id без повторов
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class LongArrays {
+
+    //Во сколько раз больший массив должен превосходить меньший, чтобы вместо слияния
+    //искать элементы меньшего массива в большем скачками
+    private static final int GALLOP_RATIO = 16;
+
+    public static long[] intersect(long[] a, long[] b) {
+        if (a.length > b.length) {
+            return intersect(b, a);
+        }
+        if (a.length == 0) {
+            return a;
+        }
+        long[] result = new long[a.length];
+        int size = intersect(a, b, result);
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    //Новый массив с добавленным значением, или тот же массив, если значение в нем уже есть
+    public static long[] insert(long[] array, long value) {
+        int pos = Arrays.binarySearch(array, value);
+        if (pos >= 0) {
+            return array;
+        }
+        pos = -pos - 1;
+        long[] result = new long[array.length + 1];
+        System.arraycopy(array, 0, result, 0, pos);
+        result[pos] = value;
+        System.arraycopy(array, pos, result, pos + 1, array.length - pos);
+        return result;
+    }
+
+    //Новый массив без значения, или тот же массив, если значения в нем нет
+    public static long[] remove(long[] array, long value) {
+        int pos = Arrays.binarySearch(array, value);
+        if (pos < 0) {
+            return array;
+        }
+        long[] result = new long[array.length - 1];
+        System.arraycopy(array, 0, result, 0, pos);
+        System.arraycopy(array, pos + 1, result, pos, array.length - pos - 1);
+        return result;
+    }
+
+    //small не длиннее large
+    private static int intersect(long[] small, long[] large, long[] result) {
+        return (long) small.length * GALLOP_RATIO < large.length
+                ? gallop(small, large, result)
+                : merge(small, large, result);
+    }
+
+    //Линейное слияние: O(a + b), выгодно для массивов близкого размера
+    private static int merge(long[] a, long[] b, long[] result) {
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return size;
+    }
+
+    //Поиск скачками: для каждого элемента меньшего массива шаг по большему удваивается,
+    //пока не перешагнет искомое значение, затем место уточняется двоичным поиском. O(a * log(b / a))
+    private static int gallop(long[] small, long[] large, long[] result) {
+        int from = 0;
+        int size = 0;
+        for (long value : small) {
+            int step = 1;
+            int to = from;
+            while (to < large.length && large[to] < value) {
+                from = to + 1;
+                to += step;
+                step <<= 1;
+            }
+            int pos = Arrays.binarySearch(large, from, Math.min(to + 1, large.length), value);
+            if (pos >= 0) {
+                result[size++] = value;
+                from = pos + 1;
+            } else {
+                from = -pos - 1;
+            }
+            if (from >= large.length) {
+                break;
+            }
+        }
+        return size;
+    }
+}
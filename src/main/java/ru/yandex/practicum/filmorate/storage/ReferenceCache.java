@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+//Кэш небольших справочников (рейтинги МПА, жанры). Данные хранятся неизменяемым снимком,
+//который целиком перечитывается из БД после каждой записи в справочник.
+//Отсутствующие в БД id и названия запоминаются в снимке до следующего перечитывания.
+//Попадания и промахи публикуются счетчиками filmorate.reference.cache{cache, result=hit|miss}
+@Slf4j
+public class ReferenceCache<T> {
+
+    public static final String COUNTER_NAME = "filmorate.reference.cache";
+    //Ограничение на число запомненных отсутствующих ключей: перебор случайных id не раздувает снимок
+    private static final int MAX_MISSING = 1_000;
+
+    private final String name;
+    private final Supplier<List<T>> loader;
+    private final Function<T, Long> idGetter;
+    private final Function<T, String> nameGetter;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private volatile Snapshot<T> snapshot;
+
+    public ReferenceCache(String name, Supplier<List<T>> loader,
+                          Function<T, Long> idGetter, Function<T, String> nameGetter) {
+        this.name = name;
+        this.loader = loader;
+        this.idGetter = idGetter;
+        this.nameGetter = nameGetter;
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(COUNTER_NAME, hits, AtomicLong::get)
+                .description("Обращения к кэшу справочника")
+                .tag("cache", name)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder(COUNTER_NAME, misses, AtomicLong::get)
+                .description("Обращения к кэшу справочника")
+                .tag("cache", name)
+                .tag("result", "miss")
+                .register(registry);
+    }
+
+    //Перечитывания выполняются по очереди: снимок, начатый до записи, не может быть опубликован
+    //после снимка, начатого уже после нее
+    public synchronized void reload() {
+        List<T> all = List.copyOf(loader.get());
+        Map<Long, T> byId = all.stream()
+                .collect(Collectors.toUnmodifiableMap(idGetter, Function.identity()));
+        Map<String, T> byName = all.stream()
+                .collect(Collectors.toUnmodifiableMap(nameGetter, Function.identity(), (first, second) -> first));
+        snapshot = new Snapshot<>(all, byId, byName, ConcurrentHashMap.newKeySet(), ConcurrentHashMap.newKeySet());
+        log.debug("Reference cache {} loaded: {} entries, hits = {}, misses = {}",
+                name, all.size(), hits.get(), misses.get());
+    }
+
+    public List<T> getAll() {
+        hits.incrementAndGet();
+        return snapshot().all();
+    }
+
+    //Если записи нет в снимке, ищем в БД: строка могла быть добавлена в обход кэша
+    public Optional<T> findById(Long id, Function<Long, Optional<T>> source) {
+        Snapshot<T> current = snapshot();
+        return find(id, current.byId(), current.missingIds(), source);
+    }
+
+    public Optional<T> findByName(String value, Function<String, Optional<T>> source) {
+        Snapshot<T> current = snapshot();
+        return find(value, current.byName(), current.missingNames(), source);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    //Ответ без обращения к БД - попадание, в том числе для уже известного отсутствующего ключа.
+    //Отсутствующий ключ запоминается в снимке, прочитанном до запроса: если запись успела перечитать
+    //справочник, пометка останется в старом снимке и новый ее не увидит
+    private <K> Optional<T> find(K key, Map<K, T> cached, Set<K> missing, Function<K, Optional<T>> source) {
+        T found = key == null ? null : cached.get(key);
+        if (found != null || (key != null && missing.contains(key))) {
+            hits.incrementAndGet();
+            return Optional.ofNullable(found);
+        }
+        misses.incrementAndGet();
+        Optional<T> loaded = source.apply(key);
+        if (loaded.isPresent()) {
+            reload();
+        } else if (key != null && missing.size() < MAX_MISSING) {
+            missing.add(key);
+        }
+        return loaded;
+    }
+
+    private Snapshot<T> snapshot() {
+        if (snapshot == null) {
+            reload();
+        }
+        return snapshot;
+    }
+
+    private record Snapshot<T>(List<T> all, Map<Long, T> byId, Map<String, T> byName,
+                               Set<Long> missingIds, Set<String> missingNames) {
+    }
+}
@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Связи "многие ко многим" в памяти (дружба): для каждого id с одной стороны хранится
+//отсортированный массив связанных id с другой стороны, и наоборот.
+//Массивы не изменяются на месте: каждое изменение кладет в карту новую копию, поэтому читатели
+//работают без блокировок, а изменения одного массива выполняются внутри compute
+public class SortedAdjacency {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final Map<Long, long[]> targets = new ConcurrentHashMap<>();
+    private final Map<Long, long[]> sources = new ConcurrentHashMap<>();
+
+    //Заменяет связи целиком. Связи должны идти по возрастанию from, порядок to внутри from любой
+    public void load(Edges edges) {
+        Map<Long, long[]> newTargets = new HashMap<>();
+        int start = 0;
+        for (int i = 1; i <= edges.size; i++) {
+            if (i == edges.size || edges.from[i] != edges.from[start]) {
+                long[] array = Arrays.copyOfRange(edges.to, start, i);
+                Arrays.sort(array);
+                newTargets.put(edges.from[start], array);
+                start = i;
+            }
+        }
+        Map<Long, Integer> sourcesCount = new HashMap<>();
+        for (int i = 0; i < edges.size; i++) {
+            sourcesCount.merge(edges.to[i], 1, Integer::sum);
+        }
+        //Связи идут по возрастанию from, поэтому обратные массивы заполняются уже отсортированными
+        Map<Long, long[]> newSources = new HashMap<>();
+        Map<Long, Integer> filled = new HashMap<>();
+        for (int i = 0; i < edges.size; i++) {
+            long[] array = newSources.computeIfAbsent(edges.to[i], id -> new long[sourcesCount.get(id)]);
+            array[filled.merge(edges.to[i], 1, Integer::sum) - 1] = edges.from[i];
+        }
+        targets.clear();
+        sources.clear();
+        targets.putAll(newTargets);
+        sources.putAll(newSources);
+    }
+
+    public void add(long from, long to) {
+        targets.compute(from, (id, array) -> LongArrays.insert(array == null ? EMPTY : array, to));
+        sources.compute(to, (id, array) -> LongArrays.insert(array == null ? EMPTY : array, from));
+    }
+
+    public void remove(long from, long to) {
+        targets.computeIfPresent(from, (id, array) -> nullIfEmpty(LongArrays.remove(array, to)));
+        sources.computeIfPresent(to, (id, array) -> nullIfEmpty(LongArrays.remove(array, from)));
+    }
+
+    //Удаляет все связи, идущие от from
+    public void removeFrom(long from) {
+        long[] removed = targets.remove(from);
+        if (removed != null) {
+            for (long to : removed) {
+                sources.computeIfPresent(to, (id, array) -> nullIfEmpty(LongArrays.remove(array, from)));
+            }
+        }
+    }
+
+    //Удаляет все связи, ведущие к to
+    public void removeTo(long to) {
+        long[] removed = sources.remove(to);
+        if (removed != null) {
+            for (long from : removed) {
+                targets.computeIfPresent(from, (id, array) -> nullIfEmpty(LongArrays.remove(array, to)));
+            }
+        }
+    }
+
+    //Отсортированные массивы связанных id. Массивы общие, изменять их нельзя
+    public long[] targetsOf(long from) {
+        return targets.getOrDefault(from, EMPTY);
+    }
+
+    public long[] sourcesOf(long to) {
+        return sources.getOrDefault(to, EMPTY);
+    }
+
+    //Пустой массив не хранится: null из compute удаляет запись из карты
+    private static long[] nullIfEmpty(long[] array) {
+        return array.length == 0 ? null : array;
+    }
+
+    //Список связей для загрузки в двух растущих массивах, без упаковки id в Long
+    public static class Edges {
+        private long[] from = new long[1024];
+        private long[] to = new long[1024];
+        private int size;
+
+        public void add(long fromId, long toId) {
+            if (size == from.length) {
+                from = Arrays.copyOf(from, size * 2);
+                to = Arrays.copyOf(to, size * 2);
+            }
+            from[size] = fromId;
+            to[size] = toId;
+            size++;
+        }
+
+        public void forEach(EdgeConsumer action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(from[i], to[i]);
+            }
+        }
+    }
+
+    public interface EdgeConsumer {
+        void accept(long from, long to);
+    }
+}
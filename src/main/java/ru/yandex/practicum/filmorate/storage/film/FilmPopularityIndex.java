@@ -0,0 +1,154 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+//Индекс популярности для InMemoryFilmStorage: фильмы упорядочены по числу лайков (по убыванию), затем по id.
+//Ни чтение, ни изменения не берут блокировок. top(k) проходит только первые k элементов.
+//Изменения одного фильма выполняются внутри compute и потому не перемешиваются
+public class FilmPopularityIndex {
+
+    //Сколько раз top(k) перечитывает индекс, прежде чем собрать результат по счетчикам лайков
+    private static final int MAX_ATTEMPTS = 3;
+    //Сколько последних подъемов помнит индекс, степень двойки
+    private static final int RECENT_RAISES = 1024;
+
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>();
+    private final ConcurrentHashMap<Long, Long> likes = new ConcurrentHashMap<>();
+    //Фильм, поднявшийся выше текущей позиции читателя, читатель может пропустить: новую позицию он уже прошел,
+    //а старую запись удалят раньше, чем он до нее дойдет. Поэтому подъемы нумеруются и последние из них
+    //хранятся в кольцевом буфере. Читатель перечитывает индекс, только если за время прохода какой-то фильм
+    //поднялся не ниже последней просмотренной им записи; лайки фильмам за пределами top(k) его не задевают.
+    //Писатели читателей не ждут
+    private final AtomicLong raises = new AtomicLong();
+    private final AtomicReferenceArray<Raise> recentRaises = new AtomicReferenceArray<>(RECENT_RAISES);
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    public void add(long filmId) {
+        add(filmId, 0);
+    }
+
+    public void add(long filmId, long likeCount) {
+        likes.computeIfAbsent(filmId, id -> {
+            ranking.add(new Entry(likeCount, id));
+            return likeCount;
+        });
+    }
+
+    public void remove(long filmId) {
+        likes.computeIfPresent(filmId, (id, count) -> {
+            ranking.remove(new Entry(count, id));
+            return null;
+        });
+    }
+
+    public void increment(long filmId) {
+        change(filmId, 1);
+    }
+
+    public void decrement(long filmId) {
+        change(filmId, -1);
+    }
+
+    public List<Long> top(long count) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            long before = raises.get();
+            List<Long> result = new ArrayList<>();
+            Entry last = collect(count, result);
+            if (!raisedUpTo(last, before)) {
+                return result;
+            }
+        }
+        fallbacks.incrementAndGet();
+        return collectByCounts(count);
+    }
+
+    //Сколько раз top(k) собирал результат запасным путем
+    public long getFallbacks() {
+        return fallbacks.get();
+    }
+
+    //Возвращает последнюю просмотренную запись или null, если индекс кончился раньше, чем набралось count фильмов
+    private Entry collect(long count, List<Long> result) {
+        //Во время перестановки фильм может встретиться дважды: на новой позиции и на старой
+        Set<Long> seen = new HashSet<>();
+        Entry last = null;
+        for (Entry entry : ranking) {
+            if (result.size() >= count) {
+                return last;
+            }
+            last = entry;
+            if (seen.add(entry.filmId())) {
+                result.add(entry.filmId());
+            }
+        }
+        return result.size() >= count ? last : null;
+    }
+
+    //Поднимался ли после подъема номер before какой-нибудь фильм на позицию не ниже last (null - конец индекса).
+    //Подъем, вытесненный из буфера или еще не записанный в него, считается задевшим читателя
+    private boolean raisedUpTo(Entry last, long before) {
+        long after = raises.get();
+        if (after - before > RECENT_RAISES) {
+            return true;
+        }
+        for (long number = before + 1; number <= after; number++) {
+            Raise raise = recentRaises.get((int) (number & (RECENT_RAISES - 1)));
+            if (raise == null || raise.number() != number || last == null || raise.entry().compareTo(last) <= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //Запасной путь при непрерывных подъемах: куча из count лучших по текущим счетчикам
+    private List<Long> collectByCounts(long count) {
+        PriorityQueue<Entry> best = new PriorityQueue<>(Comparator.reverseOrder());
+        likes.forEach((id, likeCount) -> {
+            best.add(new Entry(likeCount, id));
+            if (best.size() > count) {
+                best.poll();
+            }
+        });
+        List<Long> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            result.add(best.poll().filmId());
+        }
+        return result.reversed();
+    }
+
+    private void change(long filmId, long delta) {
+        likes.computeIfPresent(filmId, (id, count) -> {
+            long newCount = count + delta;
+            //Сначала новая позиция, потом удаление старой - опускающийся фильм читатель не потеряет.
+            //Подъем отмечается до удаления старой записи, чтобы читатель, пропустивший фильм, его заметил
+            Entry entry = new Entry(newCount, id);
+            ranking.add(entry);
+            if (delta > 0) {
+                long number = raises.incrementAndGet();
+                recentRaises.set((int) (number & (RECENT_RAISES - 1)), new Raise(number, entry));
+            }
+            ranking.remove(new Entry(count, id));
+            return newCount;
+        });
+    }
+
+    private record Raise(long number, Entry entry) {
+    }
+
+    private record Entry(long likes, long filmId) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int result = Long.compare(other.likes, likes);
+            return result != 0 ? result : Long.compare(filmId, other.filmId);
+        }
+    }
+}
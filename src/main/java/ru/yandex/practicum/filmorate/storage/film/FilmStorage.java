@@ -1,21 +1,34 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import ru.yandex.practicum.filmorate.dto.FilmDto;
 import ru.yandex.practicum.filmorate.dto.FilmRequest;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
 
     Film addNewFilm(FilmRequest request);
 
+    //Пакетное добавление, фильмы возвращаются в порядке запросов
+    List<Film> addNewFilms(List<FilmRequest> requests);
+
     Film changeFilm(Film film);
 
     Film deleteFilm(Film film);
 
     List<Film> getAll();
 
+    //Фильмы вместе с рейтингом МПА и жанрами
+    List<FilmDto> getAllWithDetails();
+
+    //То же по одному фильму в порядке id, без накопления всего списка в памяти
+    void forEachWithDetails(Consumer<FilmDto> action);
+
     Film addLike(Long filmId, Long userId);
 
     Film deleteLike(Long filmId, Long userId);
@@ -26,6 +39,18 @@ public interface FilmStorage {
 
     List<Film> getPopular(long count);
 
+    //Фильмы по убыванию числа лайков за последние часы окна (не больше count)
+    List<Film> getTrending(TrendingWindow window, int count);
+
+    //Не больше limit фильмов с id больше afterId в порядке id
+    List<Film> getPage(long afterId, int limit);
+
     Optional<Film> findFilmWithLike(Long filmId, Long userId);
 
+    //Фильмы, которые понравились пользователям с похожими лайками, но не самому пользователю (не больше count)
+    List<Film> getRecommendations(long userId, int count);
+
+    //Фильмы, которые лайкнул хотя бы один из пользователей, по убыванию числа лайкнувших из них (не больше count)
+    List<Film> getLikedByUsers(Collection<Long> userIds, int count);
+
 }
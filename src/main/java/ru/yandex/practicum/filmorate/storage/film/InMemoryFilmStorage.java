@@ -1,49 +1,104 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
 import ru.yandex.practicum.filmorate.dto.FilmRequest;
+import ru.yandex.practicum.filmorate.exception.DuplicateDataException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.mapper.FilmMapper;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.IdSequence;
 import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
 
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
 
+//Хранилище рассчитано на обращения из многих потоков: фильмы не изменяются на месте,
+//каждое изменение (в том числе лайк) кладет в карту новую копию фильма с новым множеством лайков
 @Slf4j
 @Component("inMemoryFilmStorage")
-@RequiredArgsConstructor
 public class InMemoryFilmStorage implements FilmStorage {
 
     private final InMemoryUserStorage inMemoryUserStorage;
-    public Map<Long, Film> films = new HashMap<>();
+    private final Map<Long, Film> films = new ConcurrentHashMap<>();
+    //Id фильмов по возрастанию: страница начинается сразу с нужного места, а не с сортировки всех фильмов.
+    //Сама карта остается ConcurrentHashMap - ее compute вызывает функцию ровно один раз
+    private final NavigableSet<Long> sortedIds = new ConcurrentSkipListSet<>();
+    private final IdSequence idSequence = new IdSequence();
+    private final FilmPopularityIndex popularityIndex = new FilmPopularityIndex();
+    private final LikeIndex likeIndex = new LikeIndex();
+    private final TrendingIndex trendingIndex = new TrendingIndex();
+    //Время лайков, добавленных через хранилище (фильм -> пользователь -> время): по нему лайк вычитается
+    //из счетчиков трендов. У загруженных лайков времени нет, в тренды они не попадают
+    private final Map<Long, Map<Long, Instant>> likeTimes = new ConcurrentHashMap<>();
+
+    public InMemoryFilmStorage(InMemoryUserStorage inMemoryUserStorage) {
+        this.inMemoryUserStorage = inMemoryUserStorage;
+        inMemoryUserStorage.addDeleteListener(this::removeUserLikes);
+    }
 
     @Override
     public List<Film> getAll() {
         return films.values().stream().toList();
     }
 
+    @Override
+    public List<FilmDto> getAllWithDetails() {
+        //В памяти рейтинги и жанры фильмов не хранятся, известен только id МПА
+        return films.values().stream()
+                .map(film -> FilmMapper.mapToFilmDtoWithGenre(film, new Rating(film.getMpaId()), List.of()))
+                .toList();
+    }
+
+    @Override
+    public List<Film> getPage(long afterId, int limit) {
+        return sortedIds.tailSet(afterId, false).stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public void forEachWithDetails(Consumer<FilmDto> action) {
+        sortedIds.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .map(film -> FilmMapper.mapToFilmDtoWithGenre(film, new Rating(film.getMpaId()), List.of()))
+                .forEach(action);
+    }
+
     @Override
     public List<Film> getPopular(long count) {
-        return films.keySet().stream()
-                .map(i -> films.get(i))
-                .sorted(new Comparator<Film>() {
-                    public int compare(Film f1, Film f2) {
-                        return (-(f1.getUsersLikes().size() - f2.getUsersLikes().size()));
-                    }
-                })
-                .limit(count)
+        return popularityIndex.top(count).stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public List<Film> getTrending(TrendingWindow window, int count) {
+        return trendingIndex.top(window, count).stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
                 .toList();
     }
 
     public List<User> getFilmsLikes(Long filmId) {
-        if (!films.containsKey(filmId)) {
+        Film film = films.get(filmId);
+        if (film == null) {
             throw new NotFoundException("Film with id=" + filmId + " not found", filmId);
         }
-        return films.get(filmId).getUsersLikes().stream()
+        return film.getUsersLikes().stream()
                 .map(inMemoryUserStorage.getUsers()::get)
+                .filter(Objects::nonNull)
                 .toList();
     }
 
@@ -53,68 +108,129 @@ public class InMemoryFilmStorage implements FilmStorage {
         Film film = FilmMapper.mapToFilm(request);
         film.setId(id);
         films.put(id, film);
+        sortedIds.add(id);
+        popularityIndex.add(id);
         log.info("\nSuccessfully created {}", film);
         return film;
     }
 
+    //Пакетное добавление: диапазон id резервируется одним обращением к последовательности
+    @Override
+    public List<Film> addNewFilms(List<FilmRequest> requests) {
+        long id = idSequence.reserve(requests.size());
+        List<Film> added = new ArrayList<>(requests.size());
+        for (FilmRequest request : requests) {
+            Film film = FilmMapper.mapToFilm(request);
+            film.setId(id++);
+            films.put(film.getId(), film);
+            sortedIds.add(film.getId());
+            popularityIndex.add(film.getId());
+            added.add(film);
+        }
+        log.info("\nSuccessfully created {} films", added.size());
+        return added;
+    }
+
+    //Загрузка фильмов с уже назначенными id, последовательность продолжается после максимального из них
+    public void loadFilms(Collection<Film> loaded) {
+        for (Film film : loaded) {
+            films.put(film.getId(), film);
+            sortedIds.add(film.getId());
+            popularityIndex.add(film.getId(), film.getUsersLikes().size());
+            film.getUsersLikes().forEach(userId -> likeIndex.add(film.getId(), userId));
+            idSequence.seed(film.getId());
+        }
+    }
+
     @Override
     public Film deleteFilm(Film film) {
         films.remove(film.getId());
+        sortedIds.remove(film.getId());
+        popularityIndex.remove(film.getId());
+        likeIndex.removeFilm(film.getId());
+        trendingIndex.removeFilm(film.getId());
+        likeTimes.remove(film.getId());
         log.info("\nSuccessfully deleted {}", film);
         return film;
     }
 
     @Override
     public Film changeFilm(Film film) {
-        Film oldFilm = films.get(film.getId());
-        if (film.getName() != null)
-            oldFilm.setName(film.getName());
-        if (film.getReleaseDate() != null)
-            oldFilm.setReleaseDate(film.getReleaseDate());
-        if (film.getDescription() != null)
-            oldFilm.setDescription(film.getDescription());
-        if (film.getDuration() != null)
-            oldFilm.setDuration(film.getDuration());
-        films.put(oldFilm.getId(), oldFilm);
-        log.info("\nSuccessfully changed {}", oldFilm);
-        return oldFilm;
+        Film changedFilm = films.computeIfPresent(film.getId(), (id, oldFilm) -> {
+            Film newFilm = copyOf(oldFilm, oldFilm.getUsersLikes());
+            if (film.getName() != null)
+                newFilm.setName(film.getName());
+            if (film.getReleaseDate() != null)
+                newFilm.setReleaseDate(film.getReleaseDate());
+            if (film.getDescription() != null)
+                newFilm.setDescription(film.getDescription());
+            if (film.getDuration() != null)
+                newFilm.setDuration(film.getDuration());
+            if (film.getMpaId() != null)
+                newFilm.setMpaId(film.getMpaId());
+            return newFilm;
+        });
+        if (changedFilm == null) {
+            throw new NotFoundException("Film with id=" + film.getId() + " not found", film.getId());
+        }
+        log.info("\nSuccessfully changed {}", changedFilm);
+        return changedFilm;
     }
 
     @Override
     public Film addLike(Long filmId, Long userId) {
-        Film film = new Film();
-        film = films.get(filmId);
-        Set<Long> tmpLikes = film.getUsersLikes();
-        tmpLikes.add(userId);
-        film.setUsersLikes(tmpLikes);
-        films.put(filmId, film);
-        return films.get(filmId);
+        if (!inMemoryUserStorage.getUsers().containsKey(userId)) {
+            throw new NotFoundException("User with id=" + userId + " not found", userId);
+        }
+        LikeIndex.requireInRange(filmId);
+        LikeIndex.requireInRange(userId);
+        return changeLikes(filmId, likes -> {
+            if (!likes.add(userId)) {
+                throw new DuplicateDataException("Like of film " + filmId + " by user " + userId +
+                        " already exists.", filmId);
+            }
+            popularityIndex.increment(filmId);
+            likeIndex.add(filmId, userId);
+            Instant likedAt = Instant.now();
+            likeTimes.computeIfAbsent(filmId, id -> new ConcurrentHashMap<>()).put(userId, likedAt);
+            trendingIndex.add(filmId, likedAt);
+        });
     }
 
     @Override
     public Film deleteLike(Long filmId, Long userId) {
-        if (!films.containsKey(filmId)) {
-            throw new NotFoundException("Film with id=" + filmId + " not found", filmId);
-        }
         if (!inMemoryUserStorage.getUsers().containsKey(userId)) {
             throw new NotFoundException("User with id=" + userId + " not found", userId);
         }
-        Film film = new Film();
-        film = films.get(filmId);
-        Set<Long> tmpLikes = film.getUsersLikes();
-        tmpLikes.remove(userId);
-        film.setUsersLikes(tmpLikes);
-        films.put(filmId, film);
-        return films.get(filmId);
+        return changeLikes(filmId, likes -> removeLike(filmId, userId, likes));
+    }
+
+    //Лайки удаленного пользователя вычитаются из счетчиков популярности и трендов, как в UserDbStorage.deleteUser
+    public void removeUserLikes(long userId) {
+        for (long filmId : likeIndex.filmsOf(userId)) {
+            films.computeIfPresent(filmId, (id, oldFilm) -> {
+                Set<Long> likes = new TreeSet<>(oldFilm.getUsersLikes());
+                removeLike(filmId, userId, likes);
+                return copyOf(oldFilm, Collections.unmodifiableSet(likes));
+            });
+        }
+        likeIndex.removeUser(userId);
+    }
+
+    private void removeLike(long filmId, long userId, Set<Long> likes) {
+        if (likes.remove(userId)) {
+            popularityIndex.decrement(filmId);
+            likeIndex.remove(filmId, userId);
+            Map<Long, Instant> times = likeTimes.get(filmId);
+            Instant likedAt = times == null ? null : times.remove(userId);
+            if (likedAt != null) {
+                trendingIndex.remove(filmId, likedAt);
+            }
+        }
     }
 
     public long getNextId() {
-        long currentMaxId = films.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0);
-        return ++currentMaxId;
+        return idSequence.next();
     }
 
     // Имплементация методов, добавленных в FilmStorage
@@ -130,10 +246,48 @@ public class InMemoryFilmStorage implements FilmStorage {
 
     @Override
     public Optional<Film> findFilmWithLike(Long filmId, Long userId) {
-        return
-                films.get(filmId).getUsersLikes().contains(userId)
-                        ? Optional.ofNullable(films.get(filmId))
-                        : Optional.empty();
+        return likeIndex.isLiked(filmId, userId) ? Optional.ofNullable(films.get(filmId)) : Optional.empty();
+    }
+
+    @Override
+    public List<Film> getRecommendations(long userId, int count) {
+        return likeIndex.recommend(userId, count).stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public List<Film> getLikedByUsers(Collection<Long> userIds, int count) {
+        return likeIndex.likedByAny(userIds, count).stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    //Множество лайков копируется, изменяется и публикуется вместе с новой копией фильма
+    private Film changeLikes(Long filmId, Consumer<Set<Long>> change) {
+        Film film = films.computeIfPresent(filmId, (id, oldFilm) -> {
+            Set<Long> likes = new TreeSet<>(oldFilm.getUsersLikes());
+            change.accept(likes);
+            return copyOf(oldFilm, Collections.unmodifiableSet(likes));
+        });
+        if (film == null) {
+            throw new NotFoundException("Film with id=" + filmId + " not found", filmId);
+        }
+        return film;
+    }
+
+    private Film copyOf(Film film, Set<Long> likes) {
+        Film copy = new Film();
+        copy.setId(film.getId());
+        copy.setName(film.getName());
+        copy.setDescription(film.getDescription());
+        copy.setReleaseDate(film.getReleaseDate());
+        copy.setDuration(film.getDuration());
+        copy.setMpaId(film.getMpaId());
+        copy.setUsersLikes(likes);
+        return copy;
     }
 
 }
@@ -0,0 +1,256 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.InternalServerException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.storage.SortedAdjacency;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+//Лайки в памяти: сжатые битовые карты (roaring) пользователей каждого фильма и фильмов каждого пользователя.
+//Плотные множества занимают около бита на id, а проверка лайка, число лайков и пересечения и объединения
+//множеств выполняются по блокам в 64 бита, без упаковки id в Long.
+//Карты изменяются на месте внутри compute под монитором самой карты, читатели берут тот же монитор
+//на время чтения. Операции над несколькими картами блокируют их по одной, поэтому взаимных блокировок нет.
+//Id хранятся как 32-битные числа без знака, поэтому должны быть не больше MAX_ID.
+//Бин заполняют и обновляют хранилища БД: фильмов - при лайках, пользователей - при удалении пользователя.
+//InMemoryFilmStorage держит собственный экземпляр
+@Component
+public class LikeIndex {
+
+    public static final long MAX_ID = 0xFFFF_FFFFL;
+
+    //По скольким самым похожим пользователям подбираются рекомендации
+    private static final int NEIGHBOURS = 50;
+
+    private static final Comparator<Neighbour> BY_SIMILARITY =
+            Comparator.comparingDouble(Neighbour::similarity).reversed().thenComparingLong(Neighbour::userId);
+    private static final Comparator<Map.Entry<Long, Double>> BY_SCORE =
+            Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+    private static final Comparator<Map.Entry<Long, Integer>> BY_COUNT =
+            Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+    private final Map<Long, RoaringBitmap> usersByFilm = new ConcurrentHashMap<>();
+    private final Map<Long, RoaringBitmap> filmsByUser = new ConcurrentHashMap<>();
+
+    //Заменяет индекс целиком. Пары (пользователь, фильм) быстрее складываются в карты по возрастанию id
+    public void load(SortedAdjacency.Edges userFilmPairs) {
+        Map<Long, RoaringBitmap> newUsersByFilm = new HashMap<>();
+        Map<Long, RoaringBitmap> newFilmsByUser = new HashMap<>();
+        userFilmPairs.forEach((userId, filmId) -> {
+            newFilmsByUser.computeIfAbsent(userId, id -> new RoaringBitmap()).add(toInt(filmId));
+            newUsersByFilm.computeIfAbsent(filmId, id -> new RoaringBitmap()).add(toInt(userId));
+        });
+        newUsersByFilm.values().forEach(RoaringBitmap::runOptimize);
+        newFilmsByUser.values().forEach(RoaringBitmap::runOptimize);
+        usersByFilm.clear();
+        filmsByUser.clear();
+        usersByFilm.putAll(newUsersByFilm);
+        filmsByUser.putAll(newFilmsByUser);
+    }
+
+    public void add(long filmId, long userId) {
+        usersByFilm.compute(filmId, (id, users) -> with(users, userId));
+        filmsByUser.compute(userId, (id, films) -> with(films, filmId));
+    }
+
+    public void remove(long filmId, long userId) {
+        usersByFilm.computeIfPresent(filmId, (id, users) -> without(users, userId));
+        filmsByUser.computeIfPresent(userId, (id, films) -> without(films, filmId));
+    }
+
+    public void removeUser(long userId) {
+        RoaringBitmap films = filmsByUser.remove(userId);
+        if (films != null) {
+            films.forEach((int filmId) -> usersByFilm.computeIfPresent(Integer.toUnsignedLong(filmId),
+                    (id, users) -> without(users, userId)));
+        }
+    }
+
+    public void removeFilm(long filmId) {
+        RoaringBitmap users = usersByFilm.remove(filmId);
+        if (users != null) {
+            users.forEach((int userId) -> filmsByUser.computeIfPresent(Integer.toUnsignedLong(userId),
+                    (id, films) -> without(films, filmId)));
+        }
+    }
+
+    public boolean isLiked(long filmId, long userId) {
+        RoaringBitmap users = usersByFilm.get(filmId);
+        return users != null && userId >= 0 && userId <= MAX_ID && read(users, map -> map.contains((int) userId));
+    }
+
+    public long likeCount(long filmId) {
+        RoaringBitmap users = usersByFilm.get(filmId);
+        return users == null ? 0 : read(users, RoaringBitmap::getLongCardinality);
+    }
+
+    //Id по возрастанию
+    public long[] filmsOf(long userId) {
+        return toLongs(filmsByUser.get(userId));
+    }
+
+    public long[] usersOf(long filmId) {
+        return toLongs(usersByFilm.get(filmId));
+    }
+
+    //Фильмы, которые лайкнул хотя бы один из пользователей, по убыванию числа лайкнувших из них, затем по id.
+    //Кандидаты - объединение карт пользователей, их число у фильма - размер пересечения с картой фильма
+    public List<Long> likedByAny(Collection<Long> userIds, int count) {
+        RoaringBitmap users = new RoaringBitmap();
+        userIds.stream()
+                .filter(id -> id >= 0 && id <= MAX_ID)
+                .forEach(id -> users.add(id.intValue()));
+        RoaringBitmap films = union(userIds.stream().map(filmsByUser::get).toList());
+        Map<Long, Integer> likers = new HashMap<>();
+        films.forEach((int filmId) -> {
+            RoaringBitmap filmUsers = usersByFilm.get(Integer.toUnsignedLong(filmId));
+            if (filmUsers != null) {
+                likers.put(Integer.toUnsignedLong(filmId),
+                        read(filmUsers, map -> RoaringBitmap.andCardinality(map, users)));
+            }
+        });
+        return likers.entrySet().stream()
+                .sorted(BY_COUNT)
+                .limit(count)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    //Фильмы, которые понравились самым похожим пользователям, но не самому пользователю.
+    //Похожесть - коэффициент Жаккара множеств лайков, вклад фильма - сумма похожестей лайкнувших его соседей
+    public List<Long> recommend(long userId, int count) {
+        RoaringBitmap likedMap = filmsByUser.get(userId);
+        if (likedMap == null) {
+            return List.of();
+        }
+        //Своя копия карты пользователя: дальше она читается вместе с картами соседей
+        RoaringBitmap liked = read(likedMap, RoaringBitmap::clone);
+        int likedCount = liked.getCardinality();
+        //Все, у кого есть хотя бы один общий с пользователем лайк - объединение карт его фильмов
+        RoaringBitmap candidates = union(Arrays.stream(liked.toArray())
+                .mapToObj(filmId -> usersByFilm.get(Integer.toUnsignedLong(filmId)))
+                .toList());
+        candidates.remove(toInt(userId));
+        //Похожесть считается параллельно, размер пересечения карт - без построения самого пересечения.
+        //Каждая задача fork-join держит свою кучу из NEIGHBOURS лучших, при объединении кучи сливаются
+        PriorityQueue<Neighbour> top = Arrays.stream(candidates.toArray())
+                .parallel()
+                .collect(() -> new PriorityQueue<>(BY_SIMILARITY.reversed()), (heap, otherId) -> {
+                    RoaringBitmap other = filmsByUser.get(Integer.toUnsignedLong(otherId));
+                    if (other != null) {
+                        double similarity = read(other, map -> {
+                            int common = RoaringBitmap.andCardinality(liked, map);
+                            return (double) common / (likedCount + map.getCardinality() - common);
+                        });
+                        offer(heap, new Neighbour(Integer.toUnsignedLong(otherId), similarity));
+                    }
+                }, (heap, other) -> other.forEach(neighbour -> offer(heap, neighbour)));
+        List<Neighbour> neighbours = new ArrayList<>(top);
+        neighbours.sort(BY_SIMILARITY);
+        Map<Long, Double> scores = new HashMap<>();
+        for (Neighbour neighbour : neighbours) {
+            RoaringBitmap films = filmsByUser.get(neighbour.userId());
+            if (films != null) {
+                read(films, map -> RoaringBitmap.andNot(map, liked)).forEach((int filmId) ->
+                        scores.merge(Integer.toUnsignedLong(filmId), neighbour.similarity(), Double::sum));
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(BY_SCORE)
+                .limit(count)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    //Куча из NEIGHBOURS самых похожих, в вершине - наименее похожий из них
+    private static void offer(PriorityQueue<Neighbour> heap, Neighbour neighbour) {
+        heap.add(neighbour);
+        if (heap.size() > NEIGHBOURS) {
+            heap.poll();
+        }
+    }
+
+    //Писатели одной карты и так упорядочены compute, монитор нужен ради читателей
+    private static RoaringBitmap with(RoaringBitmap bitmap, long id) {
+        int value = toInt(id);
+        RoaringBitmap result = bitmap == null ? new RoaringBitmap() : bitmap;
+        synchronized (result) {
+            result.add(value);
+        }
+        return result;
+    }
+
+    //Пустая карта не хранится: null из compute удаляет запись
+    private static RoaringBitmap without(RoaringBitmap bitmap, long id) {
+        if (id < 0 || id > MAX_ID) {
+            return bitmap;
+        }
+        synchronized (bitmap) {
+            bitmap.remove((int) id);
+            return bitmap.isEmpty() ? null : bitmap;
+        }
+    }
+
+    private static <R> R read(RoaringBitmap bitmap, Function<RoaringBitmap, R> reader) {
+        synchronized (bitmap) {
+            return reader.apply(bitmap);
+        }
+    }
+
+    //Объединение карт, каждая из которых блокируется только на время своего шага
+    private static RoaringBitmap union(List<RoaringBitmap> bitmaps) {
+        RoaringBitmap result = new RoaringBitmap();
+        for (RoaringBitmap bitmap : bitmaps) {
+            if (bitmap != null) {
+                synchronized (bitmap) {
+                    result.or(bitmap);
+                }
+            }
+        }
+        return result;
+    }
+
+    //Проверка до записи лайка: после фиксации в базе лайк с таким id уже не попал бы в индекс.
+    //null пропускается - его отсекает NOT NULL в базе
+    public static void requireInRange(Long id) {
+        if (id != null && (id < 0 || id > MAX_ID)) {
+            throw new ValidationException("Id " + id + " не поддерживается индексом лайков", id);
+        }
+    }
+
+    private static int toInt(long id) {
+        if (id < 0 || id > MAX_ID) {
+            throw new InternalServerException("Id " + id + " не помещается в индекс лайков");
+        }
+        return (int) id;
+    }
+
+    private static long[] toLongs(RoaringBitmap bitmap) {
+        if (bitmap == null) {
+            return new long[0];
+        }
+        synchronized (bitmap) {
+            long[] result = new long[bitmap.getCardinality()];
+            IntIterator ids = bitmap.getIntIterator();
+            for (int i = 0; i < result.length; i++) {
+                result[i] = Integer.toUnsignedLong(ids.next());
+            }
+            return result;
+        }
+    }
+
+    private record Neighbour(long userId, double similarity) {
+    }
+}
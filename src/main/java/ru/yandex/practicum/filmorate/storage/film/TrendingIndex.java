@@ -0,0 +1,175 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+//Лайки за последние часы в памяти: у каждого фильма с недавними лайками есть кольцо почасовых счетчиков
+//и суммы по каждому окну. При смене часа из сумм вычитается только вышедший из окна час,
+//поэтому рейтинг за окно строится по готовым суммам, без пересчета лайков.
+//В индексе есть только фильмы с лайками за самое длинное окно, остальные удаляются при чтении рейтинга.
+//Бин заполняют и обновляют хранилища БД, InMemoryFilmStorage держит собственный экземпляр
+@Component
+public class TrendingIndex {
+
+    //Длина кольца в часах - самое длинное окно
+    static final int HOURS = Arrays.stream(TrendingWindow.values()).mapToInt(TrendingWindow::getHours).max()
+            .orElseThrow();
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static final Comparator<Trend> BY_LIKES =
+            Comparator.comparingInt(Trend::likes).reversed().thenComparingLong(Trend::filmId);
+
+    private final Map<Long, Counters> counters = new ConcurrentHashMap<>();
+    private final Clock clock;
+
+    public TrendingIndex() {
+        this(Clock.systemUTC());
+    }
+
+    public TrendingIndex(Clock clock) {
+        this.clock = clock;
+    }
+
+    public void clear() {
+        counters.clear();
+    }
+
+    //Лайки раньше начала самого длинного окна не учитываются
+    public void add(long filmId, Instant likedAt) {
+        change(filmId, likedAt, 1);
+    }
+
+    public void remove(long filmId, Instant likedAt) {
+        change(filmId, likedAt, -1);
+    }
+
+    public void removeFilm(long filmId) {
+        counters.remove(filmId);
+    }
+
+    //Начало самого длинного окна: более ранние лайки загружать в индекс не нужно
+    public Instant windowStart() {
+        return Instant.ofEpochMilli((currentHour() - HOURS + 1) * HOUR_MILLIS);
+    }
+
+    //Фильмы по убыванию числа лайков за окно, затем по id
+    public List<Long> top(TrendingWindow window, int count) {
+        long now = currentHour();
+        //Куча из count лучших фильмов, в вершине - худший из них
+        PriorityQueue<Trend> top = new PriorityQueue<>(BY_LIKES.reversed());
+        List<Long> expired = new ArrayList<>();
+        counters.forEach((filmId, filmCounters) -> {
+            int likes = filmCounters.likes(window, now);
+            if (likes > 0) {
+                top.add(new Trend(filmId, likes));
+                if (top.size() > count) {
+                    top.poll();
+                }
+            } else if (filmCounters.isEmpty()) {
+                expired.add(filmId);
+            }
+        });
+        expired.forEach(filmId -> counters.computeIfPresent(filmId,
+                (id, filmCounters) -> filmCounters.isEmpty() ? null : filmCounters));
+        return top.stream()
+                .sorted(BY_LIKES)
+                .map(Trend::filmId)
+                .toList();
+    }
+
+    private void change(long filmId, Instant likedAt, int delta) {
+        long hour = Math.floorDiv(likedAt.toEpochMilli(), HOUR_MILLIS);
+        long now = currentHour();
+        if (hour <= now - HOURS) {
+            return;
+        }
+        //Пустые счетчики не хранятся: null из compute удаляет запись
+        counters.compute(filmId, (id, filmCounters) -> {
+            if (filmCounters == null && delta < 0) {
+                return null;
+            }
+            Counters result = filmCounters == null ? new Counters(now) : filmCounters;
+            result.add(hour, delta, now);
+            return result.isEmpty() ? null : result;
+        });
+    }
+
+    private long currentHour() {
+        return Math.floorDiv(clock.millis(), HOUR_MILLIS);
+    }
+
+    //Кольцо почасовых счетчиков фильма: час h хранится в ячейке h % HOURS.
+    //sums[i] - сумма по часам окна TrendingWindow.values()[i], заканчивающегося часом last
+    private static class Counters {
+        private final int[] buckets = new int[HOURS];
+        private final int[] sums = new int[TrendingWindow.values().length];
+        private long last;
+
+        Counters(long hour) {
+            last = hour;
+        }
+
+        synchronized void add(long hour, int delta, long now) {
+            advance(Math.max(hour, now));
+            if (hour <= last - HOURS) {
+                return;
+            }
+            buckets[slot(hour)] += delta;
+            TrendingWindow[] windows = TrendingWindow.values();
+            for (int i = 0; i < windows.length; i++) {
+                if (hour > last - windows[i].getHours()) {
+                    sums[i] += delta;
+                }
+            }
+        }
+
+        synchronized int likes(TrendingWindow window, long now) {
+            advance(now);
+            return sums[window.ordinal()];
+        }
+
+        synchronized boolean isEmpty() {
+            return Arrays.stream(sums).allMatch(sum -> sum == 0);
+        }
+
+        //Сдвигает окна до часа hour: из каждой суммы вычитается вышедший из окна час,
+        //ячейка самого старого часа освобождается под новый
+        private void advance(long hour) {
+            if (hour <= last) {
+                return;
+            }
+            if (hour - last >= HOURS) {
+                Arrays.fill(buckets, 0);
+                Arrays.fill(sums, 0);
+                last = hour;
+                return;
+            }
+            TrendingWindow[] windows = TrendingWindow.values();
+            while (last < hour) {
+                last++;
+                for (int i = 0; i < windows.length; i++) {
+                    sums[i] -= buckets[slot(last - windows[i].getHours())];
+                }
+                buckets[slot(last)] = 0;
+            }
+        }
+
+        private static int slot(long hour) {
+            return (int) Math.floorMod(hour, HOURS);
+        }
+    }
+
+    private record Trend(long filmId, int likes) {
+    }
+}
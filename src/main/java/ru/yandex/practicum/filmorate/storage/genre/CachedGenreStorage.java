@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.storage.genre;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.ReferenceCache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+//Хранилище жанров с кэшем поверх genreDbStorage. Связи фильм-жанр не кэшируются
+@Component("cachedGenreStorage")
+public class CachedGenreStorage implements GenreStorage {
+
+    private final GenreStorage genreStorage;
+    private final ReferenceCache<Genre> cache;
+
+    public CachedGenreStorage(@Qualifier("genreDbStorage") GenreStorage genreStorage,
+                              ObjectProvider<MeterRegistry> registry) {
+        this.genreStorage = genreStorage;
+        this.cache = new ReferenceCache<>("genre", genreStorage::getAllGenre, Genre::getId, Genre::getName);
+        registry.ifAvailable(cache::bindTo);
+    }
+
+    @PostConstruct
+    public void init() {
+        cache.reload();
+    }
+
+    @Override
+    public Genre createGenre(Genre genre) {
+        Genre created = genreStorage.createGenre(genre);
+        cache.reload();
+        return created;
+    }
+
+    @Override
+    public Genre modifyGenre(Genre genre) {
+        Genre modified = genreStorage.modifyGenre(genre);
+        cache.reload();
+        return modified;
+    }
+
+    @Override
+    public Genre deleteGenre(Genre genre) {
+        Genre deleted = genreStorage.deleteGenre(genre);
+        cache.reload();
+        return deleted;
+    }
+
+    @Override
+    public List<Genre> getAllGenre() {
+        return cache.getAll();
+    }
+
+    @Override
+    public Optional<Genre> findById(long genreId) {
+        return cache.findById(genreId, genreStorage::findById);
+    }
+
+    @Override
+    public Optional<Genre> findByName(String name) {
+        return cache.findByName(name, genreStorage::findByName);
+    }
+
+    @Override
+    public List<Genre> findByFilmId(Long filmId) {
+        return genreStorage.findByFilmId(filmId);
+    }
+
+    @Override
+    public Map<Long, List<Genre>> findByFilmIds(Collection<Long> filmIds) {
+        return genreStorage.findByFilmIds(filmIds);
+    }
+
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    public long getMisses() {
+        return cache.getMisses();
+    }
+}
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.storage.genre;
+
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface GenreStorage {
+
+    Genre createGenre(Genre genre);
+
+    Genre modifyGenre(Genre genre);
+
+    Genre deleteGenre(Genre genre);
+
+    List<Genre> getAllGenre();
+
+    Optional<Genre> findById(long genreId);
+
+    Optional<Genre> findByName(String name);
+
+    List<Genre> findByFilmId(Long filmId);
+
+    Map<Long, List<Genre>> findByFilmIds(Collection<Long> filmIds);
+
+}
@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.storage.rating;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.storage.ReferenceCache;
+
+import java.util.List;
+import java.util.Optional;
+
+//Хранилище рейтингов с кэшем поверх ratingDbStorage: чтение из памяти, запись в БД с обновлением кэша
+@Component("cachedRatingStorage")
+public class CachedRatingStorage implements RatingStorage {
+
+    private final RatingStorage ratingStorage;
+    private final ReferenceCache<Rating> cache;
+
+    public CachedRatingStorage(@Qualifier("ratingDbStorage") RatingStorage ratingStorage,
+                               ObjectProvider<MeterRegistry> registry) {
+        this.ratingStorage = ratingStorage;
+        this.cache = new ReferenceCache<>("rating", ratingStorage::getAllRating, Rating::getId, Rating::getName);
+        registry.ifAvailable(cache::bindTo);
+    }
+
+    @PostConstruct
+    public void init() {
+        cache.reload();
+    }
+
+    @Override
+    public Rating createRating(Rating rating) {
+        Rating created = ratingStorage.createRating(rating);
+        cache.reload();
+        return created;
+    }
+
+    @Override
+    public Rating modifyRating(Rating rating) {
+        Rating modified = ratingStorage.modifyRating(rating);
+        cache.reload();
+        return modified;
+    }
+
+    @Override
+    public Rating deleteRating(Rating rating) {
+        Rating deleted = ratingStorage.deleteRating(rating);
+        cache.reload();
+        return deleted;
+    }
+
+    @Override
+    public List<Rating> getAllRating() {
+        return cache.getAll();
+    }
+
+    @Override
+    public Optional<Rating> findById(Long ratingId) {
+        return cache.findById(ratingId, ratingStorage::findById);
+    }
+
+    @Override
+    public Optional<Rating> findByName(String name) {
+        return cache.findByName(name, ratingStorage::findByName);
+    }
+
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    public long getMisses() {
+        return cache.getMisses();
+    }
+}
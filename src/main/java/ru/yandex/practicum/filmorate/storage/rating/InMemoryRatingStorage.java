@@ -2,27 +2,30 @@ package ru.yandex.practicum.filmorate.storage.rating;
 
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.storage.IdSequence;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component("inMemoryRatingStorage")
 public class InMemoryRatingStorage implements RatingStorage {
 
-    private Map<Long, Rating> ratingMap = new HashMap<>();
+    private final Map<Long, Rating> ratingMap = new ConcurrentHashMap<>();
+    private final IdSequence idSequence = new IdSequence();
 
     @Override
     public Rating createRating(Rating rating) {
         Rating newRating = new Rating(getRatingNextId(), rating.getName(), rating.getDescription());
         ratingMap.put(newRating.getId(), newRating);
-        return rating;
+        return newRating;
     }
 
     @Override
     public Rating modifyRating(Rating rating) {
         ratingMap.put(rating.getId(), rating);
+        idSequence.seed(rating.getId());
         return rating;
     }
 
@@ -50,12 +53,7 @@ public class InMemoryRatingStorage implements RatingStorage {
     }
 
     public long getRatingNextId() {
-        long currentMaxId = ratingMap.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0);
-        return ++currentMaxId;
+        return idSequence.next();
     }
 
 }
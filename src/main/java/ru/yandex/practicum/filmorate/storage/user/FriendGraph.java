@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import ru.yandex.practicum.filmorate.storage.LongArrays;
+import ru.yandex.practicum.filmorate.storage.SortedAdjacency;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+//Граф дружбы в памяти: для каждого пользователя хранится отсортированный массив id его друзей
+//и массив id тех, у кого он в друзьях (нужен, чтобы быстро убрать удаленного пользователя)
+public class FriendGraph {
+
+    private final SortedAdjacency friends = new SortedAdjacency();
+
+    //Заменяет граф целиком. Связи должны идти по возрастанию from
+    public void load(SortedAdjacency.Edges edges) {
+        friends.load(edges);
+    }
+
+    public void add(long from, long to) {
+        friends.add(from, to);
+    }
+
+    public void remove(long from, long to) {
+        friends.remove(from, to);
+    }
+
+    public void removeUser(long userId) {
+        friends.removeFrom(userId);
+        friends.removeTo(userId);
+    }
+
+    //Отсортированный по возрастанию массив id друзей. Массив общий, изменять его нельзя
+    public long[] friendsOf(long userId) {
+        return friends.targetsOf(userId);
+    }
+
+    //Общие друзья двух пользователей по возрастанию id, сами пользователи в результат не входят
+    public long[] commonFriends(long userId, long otherId) {
+        long[] common = LongArrays.intersect(friendsOf(userId), friendsOf(otherId));
+        return Arrays.stream(common)
+                .filter(id -> id != userId && id != otherId)
+                .toArray();
+    }
+
+    //Друзья друзей, которых еще нет в друзьях у пользователя, по убыванию числа общих друзей, затем по id
+    public List<Suggestion> suggest(long userId, int count) {
+        long[] userFriends = friendsOf(userId);
+        long[][] secondHop = new long[userFriends.length][];
+        int size = 0;
+        for (int i = 0; i < userFriends.length; i++) {
+            secondHop[i] = friendsOf(userFriends[i]);
+            size += secondHop[i].length;
+        }
+        //Все вторые соседи в один массив: после сортировки повторы одного id идут подряд,
+        //и длина такой серии равна числу общих друзей
+        long[] candidates = new long[size];
+        int pos = 0;
+        for (long[] next : secondHop) {
+            System.arraycopy(next, 0, candidates, pos, next.length);
+            pos += next.length;
+        }
+        Arrays.sort(candidates);
+        Comparator<Suggestion> ranking = Comparator.comparingInt(Suggestion::mutualFriends).reversed()
+                .thenComparingLong(Suggestion::userId);
+        //Куча из count лучших кандидатов, в вершине - худший из них
+        PriorityQueue<Suggestion> top = new PriorityQueue<>(ranking.reversed());
+        int start = 0;
+        for (int i = 1; i <= size; i++) {
+            if (i < size && candidates[i] == candidates[start]) {
+                continue;
+            }
+            long candidate = candidates[start];
+            if (candidate != userId && Arrays.binarySearch(userFriends, candidate) < 0) {
+                top.add(new Suggestion(candidate, i - start));
+                if (top.size() > count) {
+                    top.poll();
+                }
+            }
+            start = i;
+        }
+        List<Suggestion> result = new ArrayList<>(top);
+        result.sort(ranking);
+        return result;
+    }
+
+    public record Suggestion(long userId, int mutualFriends) {
+    }
+}
@@ -1,31 +1,95 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.DuplicateDataException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.IdSequence;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+//Хранилище рассчитано на обращения из многих потоков: пользователи не изменяются на месте,
+//каждое изменение кладет в карту новую копию пользователя с новым множеством друзей.
+//E-mail и логин закрепляются за пользователем в индексах через putIfAbsent, поэтому проверка
+//уникальности и занятие значения выполняются одним атомарным действием
 @Getter
 @Slf4j
 @Component("inMemoryUserStorage")
 public class InMemoryUserStorage implements UserStorage {
-    private final Map<Long, User> users = new HashMap<>();
+    private final Map<Long, User> users = new ConcurrentHashMap<>();
+    //Id пользователей по возрастанию: страница начинается сразу с нужного места, а не с сортировки всех.
+    //Сама карта остается ConcurrentHashMap - ее compute вызывает функцию ровно один раз
+    @Getter(AccessLevel.NONE)
+    private final NavigableSet<Long> sortedIds = new ConcurrentSkipListSet<>();
+    @Getter(AccessLevel.NONE)
+    private final IdSequence idSequence = new IdSequence();
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Long> emailIndex = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Long> loginIndex = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final FriendGraph friendGraph = new FriendGraph();
+    //Вызываются с id удаленного пользователя: так InMemoryFilmStorage убирает его лайки
+    @Getter(AccessLevel.NONE)
+    private final List<Consumer<Long>> deleteListeners = new CopyOnWriteArrayList<>();
+
+    public void addDeleteListener(Consumer<Long> listener) {
+        deleteListeners.add(listener);
+    }
 
     public List<User> getAllUsers() {
         return users.values().stream().toList();
     }
 
+    @Override
+    public List<User> getPage(long afterId, int limit) {
+        return sortedIds.tailSet(afterId, false).stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public List<User> getFriendsPage(long userId, long afterId, int limit) {
+        User user = users.get(userId);
+        if (user == null) {
+            throw new NotFoundException("User with id= " + userId + " not found", userId);
+        }
+        return user.getFriends().stream()
+                .filter(id -> id > afterId)
+                .sorted()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public void forEachUser(Consumer<User> action) {
+        sortedIds.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .forEach(action);
+    }
+
     @Override
     public List<User> getFriends(long userId) {
-        if (!users.containsKey(userId)) {
+        User user = users.get(userId);
+        if (user == null) {
             throw new NotFoundException("User with id= " + userId + " not found", userId);
         }
-        return users.get(userId).getFriends().stream()
+        return user.getFriends().stream()
                 .map(users::get)
+                .filter(Objects::nonNull)
                 .toList();
     }
 
@@ -38,78 +102,144 @@ public class InMemoryUserStorage implements UserStorage {
             throw new NotFoundException("User with id= " + l2 + " not found", l2);
         }
 
-        return users.get(l1).getFriends().stream()
-                .filter(l -> users.get(l2).getFriends().contains(l))
-                .map(users::get)
+        return Arrays.stream(friendGraph.commonFriends(l1, l2))
+                .mapToObj(users::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public List<User> getFriendSuggestions(long userId, int count) {
+        if (!users.containsKey(userId)) {
+            throw new NotFoundException("User with id= " + userId + " not found", userId);
+        }
+        return friendGraph.suggest(userId, count).stream()
+                .map(suggestion -> users.get(suggestion.userId()))
+                .filter(Objects::nonNull)
                 .toList();
     }
 
     @Override
     public User createUser(User newUser) {
         newUser.setId(getNextId());
+        reserveEmailAndLogin(newUser);
         users.put(newUser.getId(), newUser);
+        sortedIds.add(newUser.getId());
         log.info("\nSuccessfully created {}", newUser);
         return newUser;
     }
 
+    //Пакетное добавление: диапазон id резервируется одним обращением к последовательности
+    @Override
+    public List<User> createUsers(List<User> newUsers) {
+        long id = idSequence.reserve(newUsers.size());
+        List<User> reserved = new ArrayList<>(newUsers.size());
+        try {
+            for (User user : newUsers) {
+                user.setId(id++);
+                reserveEmailAndLogin(user);
+                reserved.add(user);
+            }
+        } catch (DuplicateDataException e) {
+            //Пакет добавляется целиком или не добавляется совсем
+            reserved.forEach(this::releaseEmailAndLogin);
+            throw e;
+        }
+        newUsers.forEach(user -> {
+            users.put(user.getId(), user);
+            sortedIds.add(user.getId());
+        });
+        log.info("\nSuccessfully created {} users", newUsers.size());
+        return newUsers;
+    }
+
+    //Загрузка пользователей с уже назначенными id, последовательность продолжается после максимального из них
+    public void loadUsers(Collection<User> loaded) {
+        for (User user : loaded) {
+            users.put(user.getId(), user);
+            sortedIds.add(user.getId());
+            emailIndex.put(user.getEmail(), user.getId());
+            loginIndex.put(user.getLogin(), user.getId());
+            idSequence.seed(user.getId());
+            user.getFriends().forEach(friendId -> friendGraph.add(user.getId(), friendId));
+        }
+    }
+
     @Override
     public User deleteUser(User user) {
-        return null;
+        User deleted = users.remove(user.getId());
+        if (deleted == null) {
+            throw new NotFoundException("Пользователь с id = " + user.getId() + " не найден", user.getId());
+        }
+        sortedIds.remove(deleted.getId());
+        releaseEmailAndLogin(deleted);
+        friendGraph.removeUser(deleted.getId());
+        //Удаленный пользователь больше не должен числиться в друзьях у других
+        users.replaceAll((id, other) -> other.getFriends().contains(user.getId())
+                ? copyOf(other, friends -> friends.remove(user.getId()))
+                : other);
+        deleteListeners.forEach(listener -> listener.accept(deleted.getId()));
+        log.info("\nSuccessfully deleted {}", deleted);
+        return deleted;
     }
 
     @Override
     public User modifyUser(User user) {
-        if (!users.containsKey(user.getId())) {
+        User modified = users.computeIfPresent(user.getId(), (id, oldUser) -> {
+            User newUser = copyOf(oldUser, friends -> {
+            });
+            if (user.getLogin() != null)
+                newUser.setLogin(user.getLogin());
+            if (user.getEmail() != null)
+                newUser.setEmail(user.getEmail());
+            if (user.getName() != null)
+                newUser.setName(user.getName());
+            if (user.getBirthday() != null)
+                newUser.setBirthday(user.getBirthday());
+            //Сначала занимаем новые значения, и только потом освобождаем старые
+            boolean newEmail = !oldUser.getEmail().equals(newUser.getEmail());
+            if (newEmail)
+                reserve(emailIndex, newUser.getEmail(), id, "E-mail " + newUser.getEmail() + " уже используется");
+            if (!oldUser.getLogin().equals(newUser.getLogin())) {
+                try {
+                    reserve(loginIndex, newUser.getLogin(), id, "Login " + newUser.getLogin() + " уже используется");
+                } catch (DuplicateDataException e) {
+                    if (newEmail)
+                        emailIndex.remove(newUser.getEmail(), id);
+                    throw e;
+                }
+                loginIndex.remove(oldUser.getLogin(), id);
+            }
+            if (newEmail)
+                emailIndex.remove(oldUser.getEmail(), id);
+            return newUser;
+        });
+        if (modified == null) {
             log.warn("\nNot updated {}", user);
             throw new NotFoundException("Пользователь с id = " + user.getId() + " не найден", user.getId());
         }
-        User oldUser = users.get(user.getId());
-        if (user.getLogin() != null) {
-            if (!oldUser.getLogin().equals(user.getLogin()) && isUsedLogin(user.getLogin())) {
-                log.warn("\nNot updated {}", user);
-                throw new DuplicateDataException("Login " + user.getLogin() + " уже используется", user.getLogin());
-            } else {
-                oldUser.setLogin(user.getLogin());
-            }
-        }
-        if (user.getEmail() != null) {
-            if (!oldUser.getEmail().equals(user.getEmail()) && isUsedEmail(user.getEmail())) {
-                log.warn("\nNot updated {}", user);
-                throw new DuplicateDataException("E-mail " + user.getEmail() + " уже используется", user.getEmail());
-            } else {
-                oldUser.setEmail(user.getEmail());
-            }
-        }
-        if (user.getName() != null)
-            oldUser.setName(user.getName());
-        if (user.getBirthday() != null)
-            oldUser.setBirthday(user.getBirthday());
-        //корректные данные занесены в oldUser
-        users.put(oldUser.getId(), oldUser);
-        log.info("\nSuccessfully updated {}.", user);
-        return oldUser;
+        log.info("\nSuccessfully updated {}.", modified);
+        return modified;
     }
 
     @Override
-    public User setNewFriendship(Long l1, Long l2) {
-        if (!users.containsKey(l1)) {
-            throw new NotFoundException("Not found user id= ", l1);
-        }
-        if (!users.containsKey(l2)) {
+    public void setNewFriendship(Long l1, Long l2) {
+        User friend = users.get(l2);
+        if (friend == null) {
             throw new NotFoundException("Not found user id= ", l2);
         }
-        User user = new User();
-        user = users.get(l1);
-        Set<Long> tmpFriends1 = user.getFriends();
-        if (!tmpFriends1.contains(l2)) {
-            tmpFriends1.add(l2);
-            user.setFriends(tmpFriends1);
-            users.put(l1, user);
-            log.info("\nSuccessfully updated friend {}.", user);
-            return users.get(l2);
-        } else
-            throw new DuplicateDataException("Пользователь " + l2 + "уже является другом пользователя " + l1,
-                    users.get(l2));
+        User user = users.computeIfPresent(l1, (id, oldUser) -> {
+            if (oldUser.getFriends().contains(l2)) {
+                throw new DuplicateDataException("Пользователь " + l2 + "уже является другом пользователя " + l1,
+                        friend);
+            }
+            return copyOf(oldUser, friends -> friends.add(l2));
+        });
+        if (user == null) {
+            throw new NotFoundException("Not found user id= ", l1);
+        }
+        friendGraph.add(l1, l2);
+        log.info("\nSuccessfully updated friend {}.", user);
     }
 
     @Override
@@ -120,45 +250,26 @@ public class InMemoryUserStorage implements UserStorage {
         if (!users.containsKey(l2)) {
             throw new NotFoundException("Not found user id= ", l2);
         }
-        User user1 = new User();
-        user1 = users.get(l1);
-        Set<Long> tmpFriends1 = user1.getFriends();
-        tmpFriends1.remove(l2);
-        user1.setFriends(tmpFriends1);
-        users.put(l1, user1);
-        User user2 = new User();
-        user2 = users.get(l2);
-        Set<Long> tmpFriends2 = user2.getFriends();
-        tmpFriends2.remove(l1);
-        user2.setFriends(tmpFriends2);
-        users.put(l2, user2);
+        users.computeIfPresent(l1, (id, user) -> copyOf(user, friends -> friends.remove(l2)));
+        users.computeIfPresent(l2, (id, user) -> copyOf(user, friends -> friends.remove(l1)));
+        friendGraph.remove(l1, l2);
+        friendGraph.remove(l2, l1);
         return getFriends(l1);
     }
 
     //Далее вспомогательные методы
     public boolean isUsedLogin(String login) {
         //Метод проверяет, не занят ли логин другим пользователем
-        return users.keySet()
-                .stream()
-                .map(users::get)
-                .anyMatch(user -> user.getLogin().equals(login));
+        return loginIndex.containsKey(login);
     }
 
     public boolean isUsedEmail(String email) {
         //Метод проверяет, не занят ли e-mail другим пользователем
-        return users.keySet()
-                .stream()
-                .map(users::get)
-                .anyMatch(user -> user.getEmail().equals(email));
+        return emailIndex.containsKey(email);
     }
 
     public long getNextId() {
-        long currentMaxId = users.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0);
-        return ++currentMaxId;
+        return idSequence.next();
     }
 
     // Имплементация методов, добавленных в UserStorage
@@ -169,26 +280,61 @@ public class InMemoryUserStorage implements UserStorage {
 
     @Override
     public Optional<User> findByEmail(String email) {
-        return users.keySet().stream()
-                .map(users::get)
-                .filter(user -> user.getEmail().equals(email))
-                .findFirst();
+        return Optional.ofNullable(emailIndex.get(email)).map(users::get);
     }
 
     @Override
     public Optional<User> findByLogin(String login) {
-        return users.keySet().stream()
-                .map(users::get)
-                .filter(user -> user.getLogin().equals(login))
-                .findFirst();
+        return Optional.ofNullable(loginIndex.get(login)).map(users::get);
+    }
+
+    @Override
+    public Set<String> findUsedEmails(Collection<String> emails) {
+        return emails.stream().filter(emailIndex::containsKey).collect(Collectors.toSet());
+    }
+
+    @Override
+    public Set<String> findUsedLogins(Collection<String> logins) {
+        return logins.stream().filter(loginIndex::containsKey).collect(Collectors.toSet());
     }
 
     @Override
     public boolean isFriendPairExist(long l1, long l2) {
-        if (!users.containsKey(l1))
-            return false;
-        else
-            return users.get(l1).getFriends().contains(l2);
+        User user = users.get(l1);
+        return user != null && user.getFriends().contains(l2);
+    }
+
+    private void reserveEmailAndLogin(User user) {
+        reserve(emailIndex, user.getEmail(), user.getId(), "Email " + user.getEmail() + " is already used.");
+        try {
+            reserve(loginIndex, user.getLogin(), user.getId(), "Login " + user.getLogin() + " is already used.");
+        } catch (DuplicateDataException e) {
+            emailIndex.remove(user.getEmail(), user.getId());
+            throw e;
+        }
+    }
+
+    private void releaseEmailAndLogin(User user) {
+        emailIndex.remove(user.getEmail(), user.getId());
+        loginIndex.remove(user.getLogin(), user.getId());
+    }
+
+    private void reserve(Map<String, Long> index, String value, Long id, String message) {
+        Long owner = index.putIfAbsent(value, id);
+        if (owner != null && !owner.equals(id)) {
+            log.warn("\nNot saved user {}: {}", id, message);
+            throw new DuplicateDataException(message, value);
+        }
+    }
+
+    //Копия пользователя с измененной копией множества друзей
+    private User copyOf(User user, Consumer<Set<Long>> change) {
+        Set<Long> friends = new TreeSet<>(user.getFriends());
+        change.accept(friends);
+        User copy = new User(user.getEmail(), user.getLogin(), user.getName(), user.getBirthday());
+        copy.setId(user.getId());
+        copy.setFriends(Collections.unmodifiableSet(friends));
+        return copy;
     }
 
 }
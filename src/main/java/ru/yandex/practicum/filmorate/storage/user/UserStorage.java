@@ -2,33 +2,55 @@ package ru.yandex.practicum.filmorate.storage.user;
 
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface UserStorage {
 
     User createUser(User user);
 
+    //Пакетное добавление, пользователи возвращаются в порядке списка
+    List<User> createUsers(List<User> users);
+
     User deleteUser(User user);
 
     User modifyUser(User user);
 
-    User setNewFriendship(Long l1, Long l2);
+    void setNewFriendship(Long l1, Long l2);
 
     List<User> deleteFriendship(long l1, long l2);
 
     List<User> getFriends(long userId);
 
+    //Постраничная выдача: не больше limit записей с id больше afterId в порядке id
+    List<User> getFriendsPage(long userId, long afterId, int limit);
+
     List<User> getCommonFriends(long l1, long l2);
 
+    //Друзья друзей, которых нет в друзьях у пользователя, по убыванию числа общих друзей (не больше count)
+    List<User> getFriendSuggestions(long userId, int count);
+
     List<User> getAllUsers();
 
+    List<User> getPage(long afterId, int limit);
+
+    //Все пользователи по одному в порядке id, без накопления списка в памяти
+    void forEachUser(Consumer<User> action);
+
     Optional<User> findById(long userId);
 
     Optional<User> findByEmail(String email);
 
     Optional<User> findByLogin(String login);
 
+    //Какие из переданных email и логинов уже заняты
+    Set<String> findUsedEmails(Collection<String> emails);
+
+    Set<String> findUsedLogins(Collection<String> logins);
+
     boolean isFriendPairExist(long l1, long l2);
 
 }
@@ -17,7 +17,6 @@ public class ReleaseDateValidator implements
     @Override
     public boolean isValid(LocalDate releaseDate,
                            ConstraintValidatorContext cxt) {
-        System.out.println(releaseDate);
         if (releaseDate == null) {
             return false;
         }
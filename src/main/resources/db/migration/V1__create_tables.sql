@@ -1,3 +1,4 @@
+-- Исходная схема. IF NOT EXISTS оставлен для баз, созданных до перехода на миграции
 CREATE TABLE IF NOT EXISTS rating (
               id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
               name varchar(7) NOT NULL,
@@ -0,0 +1,26 @@
+-- Справочники рейтингов и жанров. Раньше data.sql выполнялся при каждом старте,
+-- поэтому в старых базах записи могли задублироваться: оставляем запись с наименьшим id
+UPDATE film f SET mpa = (SELECT MIN(r2.id) FROM rating r1 JOIN rating r2 ON r2.name = r1.name WHERE r1.id = f.mpa)
+          WHERE f.mpa IS NOT NULL;
+DELETE FROM rating r WHERE r.id > (SELECT MIN(r2.id) FROM rating r2 WHERE r2.name = r.name);
+
+UPDATE film_genre fg SET genre_id =
+          (SELECT MIN(g2.id) FROM genre g1 JOIN genre g2 ON g2.name = g1.name WHERE g1.id = fg.genre_id);
+DELETE FROM genre g WHERE g.id > (SELECT MIN(g2.id) FROM genre g2 WHERE g2.name = g.name);
+
+MERGE INTO rating (name, description) KEY (name)
+          VALUES
+              ('G', 'У фильма нет возрастных ограничений'),
+              ('PG', 'Детям рекомендуется смотреть фильм с родителями'),
+              ('PG-13', 'Детям до 13 лет просмотр не желателен'),
+              ('R', 'Лицам до 17 лет просматривать фильм можно только в присутствии взрослого'),
+              ('NC-17', 'Лицам до 18 лет просмотр запрещён');
+
+MERGE INTO genre (name, description) KEY (name)
+          VALUES
+              ('Комедия', 'Комедия'),
+              ('Драма', 'Драма'),
+              ('Мультфильм', 'Мультфильм'),
+              ('Триллер', 'Триллер'),
+              ('Документальный', 'Документальный'),
+              ('Боевик', 'Боевик');
\ No newline at end of file
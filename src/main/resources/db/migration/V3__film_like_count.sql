@@ -0,0 +1,6 @@
+-- Счетчик лайков фильма для /films/popular, заполняется по таблице likes
+ALTER TABLE film ADD COLUMN IF NOT EXISTS like_count BIGINT NOT NULL DEFAULT 0;
+
+UPDATE film f SET like_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id);
+
+CREATE INDEX IF NOT EXISTS film_like_count_idx ON film (like_count DESC, name);
@@ -0,0 +1,21 @@
+-- Индексы и ограничения уникальности для поиска по связям и именам.
+-- Перед их созданием дубликаты связей схлопываются к записи с наименьшим id
+DELETE FROM film_genre fg WHERE fg.id >
+          (SELECT MIN(fg2.id) FROM film_genre fg2 WHERE fg2.film_id = fg.film_id AND fg2.genre_id = fg.genre_id);
+DELETE FROM likes l WHERE l.id >
+          (SELECT MIN(l2.id) FROM likes l2 WHERE l2.film_id = l.film_id AND l2.user_id = l.user_id);
+DELETE FROM friends fr WHERE fr.id >
+          (SELECT MIN(fr2.id) FROM friends fr2 WHERE fr2.user1_id = fr.user1_id AND fr2.user2_id = fr.user2_id);
+
+UPDATE film f SET like_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id);
+
+ALTER TABLE rating ADD CONSTRAINT IF NOT EXISTS rating_name_uq UNIQUE (name);
+ALTER TABLE genre ADD CONSTRAINT IF NOT EXISTS genre_name_uq UNIQUE (name);
+ALTER TABLE users ADD CONSTRAINT IF NOT EXISTS users_email_uq UNIQUE (email);
+ALTER TABLE users ADD CONSTRAINT IF NOT EXISTS users_login_uq UNIQUE (login);
+ALTER TABLE film_genre ADD CONSTRAINT IF NOT EXISTS film_genre_film_genre_uq UNIQUE (film_id, genre_id);
+ALTER TABLE likes ADD CONSTRAINT IF NOT EXISTS likes_film_user_uq UNIQUE (film_id, user_id);
+ALTER TABLE friends ADD CONSTRAINT IF NOT EXISTS friends_user1_user2_uq UNIQUE (user1_id, user2_id);
+
+CREATE INDEX IF NOT EXISTS film_name_idx ON film (name);
+CREATE INDEX IF NOT EXISTS likes_user_idx ON likes (user_id);
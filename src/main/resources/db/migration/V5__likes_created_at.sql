@@ -0,0 +1,8 @@
+-- Время лайка для рейтинга за последние сутки и неделю.
+-- Время старых лайков неизвестно: они считаются давними и в окна не попадают
+ALTER TABLE likes ADD COLUMN IF NOT EXISTS created_at TIMESTAMP WITH TIME ZONE;
+UPDATE likes SET created_at = TIMESTAMP WITH TIME ZONE '1970-01-01 00:00:00+00' WHERE created_at IS NULL;
+ALTER TABLE likes ALTER COLUMN created_at SET DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE likes ALTER COLUMN created_at SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS likes_created_at_idx ON likes (created_at);
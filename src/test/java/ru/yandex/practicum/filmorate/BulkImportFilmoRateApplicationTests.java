@@ -0,0 +1,136 @@
+package ru.yandex.practicum.filmorate;
+
+import com.google.gson.Gson;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.ComponentScan;
+import ru.yandex.practicum.filmorate.dal.GenreDbStorage;
+import ru.yandex.practicum.filmorate.dal.UserDbStorage;
+import ru.yandex.practicum.filmorate.dto.BulkResult;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.BulkImportService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@ComponentScan("ru.yandex.practicum.filmorate")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BulkImportFilmoRateApplicationTests {
+
+    private final BulkImportService bulkImportService;
+    private final GenreDbStorage genreStorage;
+    private final UserDbStorage userStorage;
+
+    private final Gson gson = new Gson();
+
+    @Test
+    public void testImportFilms() throws IOException {
+        String body = """
+                {"name":"Bulk1","description":"d","releaseDate":"2000-01-01","duration":90,"mpa":{"id":1},\
+                "genres":[{"id":1},{"id":2},{"id":1}]}
+
+                {"name":"Broken",
+                {"name":"Bulk2","description":"d","releaseDate":"2000-01-01","duration":90,"mpa":{"id":99}}
+                {"name":"","description":"d","releaseDate":"2000-01-01","duration":90,"mpa":{"id":1}}
+                {"name":"Bulk3","description":"d","releaseDate":"2001-01-01","duration":60,"mpa":{"id":2}}
+                """;
+        List<BulkResult> results = importFilms(body);
+
+        assertThat(results).extracting("line").containsExactly(1L, 3L, 4L, 5L, 6L);
+        assertThat(results).extracting("status").containsExactly(BulkResult.Status.CREATED,
+                BulkResult.Status.REJECTED, BulkResult.Status.REJECTED, BulkResult.Status.REJECTED,
+                BulkResult.Status.CREATED);
+        assertThat(results.get(2).getError()).isEqualTo("Указан несуществующий рейтинг МПА");
+        assertThat(genreStorage.findByFilmId(results.get(0).getId())).extracting("id").containsExactly(1L, 2L);
+        assertThat(genreStorage.findByFilmId(results.get(4).getId())).isEmpty();
+    }
+
+    @Test
+    public void testLineRejectedByDatabaseDoesNotRejectChunk() throws IOException {
+        //Описание обязательно по схеме, продолжительность 3e9 не помещается в столбец integer
+        String body = """
+                {"name":"Bulk1","description":"d","releaseDate":"2000-01-01","duration":90,"mpa":{"id":1}}
+                {"name":"NoDescription","releaseDate":"2000-01-01","duration":90,"mpa":{"id":1}}
+                null
+                {"name":"TooLong","description":"d","releaseDate":"2000-01-01","duration":3000000000,"mpa":{"id":1}}
+                {"name":"Bulk2","description":"d","releaseDate":"2000-01-01","duration":60,"mpa":{"id":2}}
+                """;
+        List<BulkResult> results = importFilms(body);
+
+        assertThat(results).extracting("status").containsExactly(BulkResult.Status.CREATED,
+                BulkResult.Status.REJECTED, BulkResult.Status.REJECTED, BulkResult.Status.REJECTED,
+                BulkResult.Status.CREATED);
+        assertThat(results.get(1).getError()).isEqualTo("Описание фильма должно быть указано");
+        assertThat(results.get(2).getError()).startsWith("Некорректный JSON");
+        assertThat(results.get(3).getError()).startsWith("Строка не сохранена");
+        assertThat(results.get(4).getId()).isNotNull();
+    }
+
+    @Test
+    public void testImportUsers() throws IOException {
+        String body = """
+                {"email":"bulk1@mail.ru","login":"bulk1","name":"Bulk","birthday":"2000-01-01"}
+                {"email":"a@rr.com","login":"bulk2","name":"Bulk","birthday":"2000-01-01"}
+                {"email":"bulk3@mail.ru","login":"bulk1","name":"Bulk","birthday":"2000-01-01"}
+                {"email":"wrong","login":"bulk4","name":"Bulk","birthday":"2000-01-01"}
+                {"email":"bulk5@mail.ru","login":"bulk5","birthday":"2000-01-01"}
+                """;
+        List<BulkResult> results = importUsers(body);
+
+        assertThat(results).extracting("status").containsExactly(BulkResult.Status.CREATED,
+                BulkResult.Status.REJECTED, BulkResult.Status.REJECTED, BulkResult.Status.REJECTED,
+                BulkResult.Status.CREATED);
+        assertThat(results.get(1).getError()).isEqualTo("Email a@rr.com is already used.");
+        assertThat(results.get(2).getError()).isEqualTo("Login bulk1 is already used.");
+        assertThat(userStorage.findById(results.get(4).getId()))
+                .hasValueSatisfying(user -> assertThat(user.getName()).isEqualTo("bulk5"));
+    }
+
+    @Test
+    public void testImportUsersInSeveralChunks() throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 1; i <= 2500; i++) {
+            //Строка 1500 повторяет email строки 10, сохраненной в предыдущей порции
+            int n = (i == 1500) ? 10 : i;
+            body.append("{\"email\":\"u").append(n).append("@mail.ru\",\"login\":\"l").append(i)
+                    .append("\",\"birthday\":\"2000-01-01\"}\n");
+        }
+        List<BulkResult> results = importUsers(body.toString());
+
+        assertThat(results).hasSize(2500);
+        assertThat(results).extracting("line").isSorted();
+        assertThat(results).filteredOn(result -> result.getStatus() == BulkResult.Status.REJECTED)
+                .extracting("line")
+                .containsExactly(1500L);
+        assertThat(userStorage.findByLogin("l2500")).map(User::getEmail).hasValue("u2500@mail.ru");
+    }
+
+    private List<BulkResult> importFilms(String body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bulkImportService.importFilms(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+        return parse(out);
+    }
+
+    private List<BulkResult> importUsers(String body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bulkImportService.importUsers(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+        return parse(out);
+    }
+
+    private List<BulkResult> parse(ByteArrayOutputStream out) {
+        return Arrays.stream(out.toString(StandardCharsets.UTF_8).split("\n"))
+                .map(line -> gson.fromJson(line, BulkResult.class))
+                .toList();
+    }
+}
@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.exception.InternalServerException;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.storage.ReferenceCache;
+import ru.yandex.practicum.filmorate.storage.genre.CachedGenreStorage;
+import ru.yandex.practicum.filmorate.storage.rating.CachedRatingStorage;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Кэш живет дольше транзакции теста, поэтому после этих тестов контекст пересоздается
+@JdbcTest
+@AutoConfigureTestDatabase
+@ComponentScan("ru.yandex.practicum.filmorate")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Import(SimpleMeterRegistry.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class CachedStorageFilmoRateApplicationTests {
+
+    private final CachedRatingStorage ratingStorage;
+    private final CachedGenreStorage genreStorage;
+    private final MeterRegistry registry;
+
+    private double counter(String cache, String result) {
+        return registry.get(ReferenceCache.COUNTER_NAME).tag("cache", cache).tag("result", result)
+                .functionCounter().count();
+    }
+
+    @Test
+    public void testFindRatingFromCache() {
+        long hits = ratingStorage.getHits();
+        long misses = ratingStorage.getMisses();
+
+        Optional<Rating> ratingOptional = ratingStorage.findById(3L);
+        assertThat(ratingOptional).isPresent()
+                .hasValueSatisfying(rating -> assertThat(rating).hasFieldOrPropertyWithValue("name", "PG-13"));
+        assertThat(ratingStorage.findByName("PG-13")).isEqualTo(ratingOptional);
+
+        assertThat(ratingStorage.getHits()).isEqualTo(hits + 2);
+        assertThat(ratingStorage.getMisses()).isEqualTo(misses);
+    }
+
+    @Test
+    public void testCacheCountersArePublished() {
+        genreStorage.findById(1L);
+        genreStorage.findById(1000L);
+
+        assertThat(counter("genre", "hit")).isEqualTo(genreStorage.getHits());
+        assertThat(counter("genre", "miss")).isEqualTo(genreStorage.getMisses()).isPositive();
+        assertThat(counter("rating", "hit")).isEqualTo(ratingStorage.getHits());
+    }
+
+    @Test
+    public void testMissingRatingIsMiss() {
+        long misses = ratingStorage.getMisses();
+        assertThat(ratingStorage.findById(1000L)).isEmpty();
+        assertThat(ratingStorage.getMisses()).isEqualTo(misses + 1);
+    }
+
+    @Test
+    public void testMissingRatingIsRememberedUntilWrite() {
+        long misses = ratingStorage.getMisses();
+        assertThat(ratingStorage.findByName("Abraka")).isEmpty();
+        assertThat(ratingStorage.findByName("Abraka")).isEmpty();
+        assertThat(ratingStorage.getMisses()).isEqualTo(misses + 1);
+
+        Rating rating = new Rating();
+        rating.setName("Abraka");
+        rating.setDescription("Nothing");
+        Rating created = ratingStorage.createRating(rating);
+        assertThat(ratingStorage.findByName("Abraka")).contains(created);
+        assertThat(ratingStorage.getMisses()).isEqualTo(misses + 1);
+    }
+
+    @Test
+    public void testCreateRatingRefreshesCache() {
+        Rating rating = new Rating();
+        rating.setName("Abraka");
+        rating.setDescription("Nothing");
+        Rating created = ratingStorage.createRating(rating);
+
+        long misses = ratingStorage.getMisses();
+        Rating cached = ratingStorage.findByName("Abraka")
+                .orElseThrow(() -> new InternalServerException("rating not found"));
+        assertThat(cached).isEqualTo(created);
+        assertThat(ratingStorage.getAllRating()).contains(created);
+        assertThat(ratingStorage.getMisses()).isEqualTo(misses);
+    }
+
+    @Test
+    public void testModifyAndDeleteGenreRefreshesCache() {
+        Genre genre = new Genre(8L, "NonAbrakadabra", "All");
+        genreStorage.modifyGenre(genre);
+        assertThat(genreStorage.findById(8L)).contains(genre);
+
+        genreStorage.deleteGenre(genre);
+        assertThat(genreStorage.getAllGenre()).doesNotContain(genre);
+        assertThat(genreStorage.findById(8L)).isEmpty();
+    }
+}
@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.ComponentScan;
+import ru.yandex.practicum.filmorate.adapters.LocalDateAdapter;
+import ru.yandex.practicum.filmorate.dal.FilmDbStorage;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.UserDto;
+import ru.yandex.practicum.filmorate.service.ExportService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@ComponentScan("ru.yandex.practicum.filmorate")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ExportFilmoRateApplicationTests {
+
+    private final ExportService exportService;
+    private final FilmDbStorage filmStorage;
+
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
+            .create();
+
+    @Test
+    public void testExportFilmsMatchesGetAllWithDetails() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportFilms(out);
+        List<FilmDto> exported = Arrays.stream(out.toString(StandardCharsets.UTF_8).split("\n"))
+                .map(line -> gson.fromJson(line, FilmDto.class))
+                .toList();
+
+        assertThat(exported).extracting("id").isSorted();
+        assertThat(exported).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(filmStorage.getAllWithDetails());
+        assertThat(exported.get(2).getGenres()).extracting("id").containsExactly(1L, 3L, 4L, 6L);
+    }
+
+    @Test
+    public void testExportUsers() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportUsers(out);
+        List<UserDto> exported = Arrays.stream(out.toString(StandardCharsets.UTF_8).split("\n"))
+                .map(line -> gson.fromJson(line, UserDto.class))
+                .toList();
+
+        assertThat(exported).hasSize(8);
+        assertThat(exported).extracting("id").isSorted();
+        assertThat(exported.get(1)).hasFieldOrPropertyWithValue("login", "log1");
+    }
+}
@@ -6,18 +6,26 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.dao.DataIntegrityViolationException;
 import ru.yandex.practicum.filmorate.dal.FilmDbStorage;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
 import ru.yandex.practicum.filmorate.dto.FilmRequest;
+import ru.yandex.practicum.filmorate.exception.DuplicateDataException;
 import ru.yandex.practicum.filmorate.exception.InternalServerException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.mapper.FilmMapper;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.storage.film.LikeIndex;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @JdbcTest
 @AutoConfigureTestDatabase
@@ -106,6 +114,21 @@ public class FilmDbFilmoRateApplicationTests {
         assertThat(films).contains(film2);
     }
 
+    @Test
+    public void testGetAllWithDetails() {
+        List<FilmDto> films = filmStorage.getAllWithDetails();
+        assertThat(films).hasSize(filmStorage.getAll().size());
+
+        FilmDto film3 = films.stream().filter(f -> f.getId() == 3L).findFirst()
+                .orElseThrow(() -> new InternalServerException("film not found"));
+        assertThat(film3.getMpa()).isEqualTo(new Rating(3L, "PG-13", "Детям до 13 лет просмотр не желателен"));
+        assertThat(film3.getGenres()).extracting("id").containsExactly(1L, 3L, 4L, 6L);
+
+        FilmDto film5 = films.stream().filter(f -> f.getId() == 5L).findFirst()
+                .orElseThrow(() -> new InternalServerException("film not found"));
+        assertThat(film5.getGenres().isEmpty()).isEqualTo(true);
+    }
+
     @Test
     public void testGetPopular() {
 
@@ -116,6 +139,22 @@ public class FilmDbFilmoRateApplicationTests {
         assertThat(films.get(1).getCount()).isGreaterThanOrEqualTo(films.get(2).getCount());
     }
 
+    @Test
+    public void testGetPopularOrder() {
+        List<Film> films = filmStorage.getPopular(3L);
+        assertThat(films).extracting("id").containsExactly(3L, 7L, 2L);
+        assertThat(films).extracting("count").containsExactly(4, 4, 2);
+    }
+
+    @Test
+    public void testLikeCountFollowsLikes() {
+        filmStorage.addLike(5L, 5L);
+        filmStorage.addLike(5L, 6L);
+        assertThat(likeCount(5L)).isEqualTo(2);
+        filmStorage.deleteLike(5L, 5L);
+        assertThat(likeCount(5L)).isEqualTo(1);
+    }
+
     @Test
     public void testFindFilmWithLike() {
         boolean isLikeExists = filmStorage.findFilmWithLike(5L, 5L).isPresent();
@@ -139,4 +178,73 @@ public class FilmDbFilmoRateApplicationTests {
         assertThat(isLikeExists).isEqualTo(false);
     }
 
+    @Test
+    public void testAddLikeReturnsUpdatedFilm() {
+        Film film = filmStorage.addLike(5L, 5L);
+        assertThat(film).hasFieldOrPropertyWithValue("id", 5L);
+        assertThat(likeCount(5L)).isEqualTo(1);
+    }
+
+    @Test
+    public void testAddDuplicateLike() {
+        assertThatThrownBy(() -> filmStorage.addLike(3L, 3L))
+                .isInstanceOf(DuplicateDataException.class);
+        assertThat(likeCount(3L)).isEqualTo(4);
+    }
+
+    @Test
+    public void testAddLikeWithMissingReference() {
+        assertThatThrownBy(() -> filmStorage.addLike(999L, 1L))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("Film 999");
+        assertThatThrownBy(() -> filmStorage.addLike(5L, 999L))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("User id = 999");
+    }
+
+    @Test
+    public void testAddLikeWithNullIsNotMissingReference() {
+        assertThatThrownBy(() -> filmStorage.addLike(5L, null))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    public void testAddLikeWithIdOutOfIndexRangeIsRejectedBeforeWrite() {
+        Integer before = likeCount(5L);
+        assertThatThrownBy(() -> filmStorage.addLike(5L, LikeIndex.MAX_ID + 1))
+                .isInstanceOf(ValidationException.class);
+        assertThat(likeCount(5L)).isEqualTo(before);
+    }
+
+    @Test
+    public void testGetRecommendations() {
+        //Лайки пользователя 3 (фильмы 3 и 7) есть у 1, 4 и 6; из новых фильмов у 1 - фильм 2, у 4 - фильм 4
+        assertThat(filmStorage.getRecommendations(3L, 10)).extracting("id").containsExactly(2L, 4L);
+        assertThat(filmStorage.getRecommendations(2L, 1)).extracting("id").containsExactly(3L);
+        assertThat(filmStorage.getRecommendations(5L, 10)).isEmpty();
+    }
+
+    @Test
+    public void testGetLikedByUsers() {
+        //Фильм 4 лайкнули оба пользователя, остальные - по одному
+        assertThat(filmStorage.getLikedByUsers(List.of(2L, 4L), 3)).extracting("id").containsExactly(4L, 1L, 2L);
+        assertThat(filmStorage.getLikedByUsers(List.of(5L), 10)).isEmpty();
+    }
+
+    @Test
+    public void testGetTrending() {
+        //Все тестовые лайки поставлены при создании базы: у фильмов 3 и 7 по четыре, у 2 и 4 по два
+        assertThat(filmStorage.getTrending(TrendingWindow.DAY, 3)).extracting("id").containsExactly(3L, 7L, 2L);
+        assertThat(filmStorage.getTrending(TrendingWindow.WEEK, 10)).extracting("id")
+                .containsExactly(3L, 7L, 2L, 4L, 1L);
+    }
+
+    private Integer likeCount(long filmId) {
+        return filmStorage.getPopular(100L).stream()
+                .filter(film -> film.getId() == filmId)
+                .findFirst()
+                .map(Film::getCount)
+                .orElseThrow(() -> new InternalServerException("film not found"));
+    }
+
 }
@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.film.FilmPopularityIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FilmPopularityIndexTests {
+
+    @Test
+    public void testTopOrderedByLikesThenId() {
+        FilmPopularityIndex index = new FilmPopularityIndex();
+        for (long id = 1; id <= 5; id++) {
+            index.add(id);
+        }
+        index.increment(4L);
+        index.increment(4L);
+        index.increment(2L);
+        index.increment(5L);
+        index.decrement(5L);
+
+        assertThat(index.top(3)).containsExactly(4L, 2L, 1L);
+        assertThat(index.top(10)).containsExactly(4L, 2L, 1L, 3L, 5L);
+    }
+
+    @Test
+    public void testRemovedFilmLeavesTop() {
+        FilmPopularityIndex index = new FilmPopularityIndex();
+        index.add(1L);
+        index.add(2L);
+        index.increment(1L);
+        index.remove(1L);
+        index.increment(1L);
+
+        assertThat(index.top(10)).containsExactly(2L);
+    }
+
+    @Test
+    public void testLikesOutsideTopDoNotForceFallback() throws Exception {
+        FilmPopularityIndex index = new FilmPopularityIndex();
+        //Фильмы 1-3 с большим отрывом впереди, лайки получают только фильмы 4-100
+        for (long id = 1; id <= 3; id++) {
+            index.add(id, 1_000_000L - id);
+        }
+        for (long id = 4; id <= 100; id++) {
+            index.add(id);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 7; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    for (long id = 4; id <= 100; id++) {
+                        index.increment(id);
+                    }
+                }
+            }));
+        }
+        futures.add(executor.submit(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                assertThat(index.top(3)).containsExactly(1L, 2L, 3L);
+            }
+        }));
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertThat(index.getFallbacks()).isZero();
+    }
+
+    @RepeatedTest(20)
+    public void testConcurrentLikes() throws Exception {
+        FilmPopularityIndex index = new FilmPopularityIndex();
+        for (long id = 1; id <= 10; id++) {
+            index.add(id);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    //Фильм id получает id * 100 лайков и теряет их половину
+                    for (long id = 1; id <= 10; id++) {
+                        if (i < id * 100 / 8) {
+                            index.increment(id);
+                        }
+                        if (i < id * 50 / 8) {
+                            index.decrement(id);
+                        }
+                    }
+                    assertThat(index.top(3)).hasSize(3).doesNotHaveDuplicates();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertThat(index.top(4)).containsExactly(10L, 9L, 8L, 7L);
+    }
+}
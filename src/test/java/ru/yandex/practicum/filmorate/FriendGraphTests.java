@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.SortedAdjacency;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraph;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FriendGraphTests {
+
+    @Test
+    public void testLoadKeepsFriendsSorted() {
+        FriendGraph graph = load(new long[][]{{1, 7}, {1, 2}, {1, 3}, {2, 1}, {5, 1}});
+
+        assertThat(graph.friendsOf(1L)).containsExactly(2L, 3L, 7L);
+        assertThat(graph.friendsOf(4L)).isEmpty();
+        graph.add(1L, 5L);
+        graph.add(1L, 5L);
+        assertThat(graph.friendsOf(1L)).containsExactly(2L, 3L, 5L, 7L);
+        graph.remove(1L, 2L);
+        assertThat(graph.friendsOf(1L)).containsExactly(3L, 5L, 7L);
+    }
+
+    @Test
+    public void testSuggestionsRankedByMutualFriends() {
+        //Друзья пользователя 1: 2, 3, 4. Пользователь 6 в друзьях у всех троих, 5 - у двоих, 7 - у одного
+        FriendGraph graph = load(new long[][]{{1, 2}, {1, 3}, {1, 4},
+                {2, 1}, {2, 3}, {2, 5}, {2, 6}, {3, 5}, {3, 6}, {3, 7}, {4, 6}});
+
+        assertThat(graph.suggest(1L, 10)).containsExactly(new FriendGraph.Suggestion(6L, 3),
+                new FriendGraph.Suggestion(5L, 2), new FriendGraph.Suggestion(7L, 1));
+        assertThat(graph.suggest(1L, 2)).extracting(FriendGraph.Suggestion::userId).containsExactly(6L, 5L);
+    }
+
+    @Test
+    public void testRemovedUserLeavesGraph() {
+        FriendGraph graph = load(new long[][]{{1, 2}, {2, 3}, {3, 2}, {4, 2}});
+        graph.removeUser(2L);
+
+        assertThat(graph.friendsOf(1L)).isEmpty();
+        assertThat(graph.friendsOf(3L)).isEmpty();
+        assertThat(graph.suggest(1L, 10)).isEmpty();
+        graph.add(1L, 4L);
+        assertThat(graph.suggest(1L, 10)).isEmpty();
+    }
+
+    @Test
+    public void testSuggestionsForThousandsOfFriends() {
+        //5000 друзей, у каждого по 200 друзей из общего круга в 10000 пользователей
+        SortedAdjacency.Edges edges = new SortedAdjacency.Edges();
+        for (long friend = 2; friend <= 5001; friend++) {
+            edges.add(1L, friend);
+        }
+        for (long friend = 2; friend <= 5001; friend++) {
+            for (long k = 0; k < 200; k++) {
+                edges.add(friend, 10_000 + (friend * 31 + k * 47) % 10_000);
+            }
+        }
+        FriendGraph graph = new FriendGraph();
+        graph.load(edges);
+
+        assertThat(graph.suggest(1L, 20)).hasSize(20)
+                .allSatisfy(suggestion -> assertThat(suggestion.userId()).isGreaterThanOrEqualTo(10_000L));
+    }
+
+    private FriendGraph load(long[][] pairs) {
+        SortedAdjacency.Edges edges = new SortedAdjacency.Edges();
+        for (long[] pair : pairs) {
+            edges.add(pair[0], pair[1]);
+        }
+        FriendGraph graph = new FriendGraph();
+        graph.load(edges);
+        return graph;
+    }
+}
@@ -11,6 +11,7 @@ import ru.yandex.practicum.filmorate.exception.InternalServerException;
 import ru.yandex.practicum.filmorate.model.Genre;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -95,6 +96,20 @@ public class GenreDbFilmoRateApplicationTests {
         assertThat(genres.isEmpty()).isEqualTo(true);
     }
 
+    @Test
+    public void testFindByFilmIds() {
+        Map<Long, List<Genre>> genres = genreDbStorage.findByFilmIds(List.of(2L, 3L, 5L));
+        assertThat(genres.get(2L)).isEqualTo(genreDbStorage.findByFilmId(2L));
+        assertThat(genres.get(3L)).isEqualTo(genreDbStorage.findByFilmId(3L));
+        assertThat(genres.containsKey(5L)).isEqualTo(false);
+    }
+
+    @Test
+    public void testFindByFilmIdsEmptyList() {
+        Map<Long, List<Genre>> genres = genreDbStorage.findByFilmIds(List.of());
+        assertThat(genres.isEmpty()).isEqualTo(true);
+    }
+
     @Test
     public void testGetAllGenre() {
         Genre genre = genreDbStorage.findById(3L).orElseThrow(() -> new InternalServerException("user not found"));
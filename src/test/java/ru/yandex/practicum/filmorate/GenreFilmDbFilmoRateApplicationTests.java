@@ -53,4 +53,15 @@ public class GenreFilmDbFilmoRateApplicationTests {
         assertThat(genresFilm6.isEmpty()).isEqualTo(true);
     }
 
+    @Test
+    public void testAddAllGenresInOneBatch() {
+        List<Long> allGenres = List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L);
+        filmGenreDbStorage.addFilmGenres(5L, allGenres);
+        assertThat(filmGenreDbStorage.getGenresOfFilm(5L))
+                .extracting("genreId")
+                .containsExactlyInAnyOrderElementsOf(allGenres);
+        filmGenreDbStorage.addFilmGenres(6L, List.of());
+        assertThat(filmGenreDbStorage.getGenresOfFilm(6L)).isEmpty();
+    }
+
 }
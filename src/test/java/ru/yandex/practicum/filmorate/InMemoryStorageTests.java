@@ -0,0 +1,230 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dto.FilmRequest;
+import ru.yandex.practicum.filmorate.exception.DuplicateDataException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class InMemoryStorageTests {
+
+    private static final int THREADS = 8;
+    private static final int USERS_PER_THREAD = 200;
+
+    private final InMemoryUserStorage userStorage = new InMemoryUserStorage();
+    private final InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(userStorage);
+
+    @Test
+    public void testConcurrentCreationAndLikes() throws Exception {
+        Film film = filmStorage.addNewFilm(new FilmRequest("Halloween", "Classic horror",
+                LocalDate.of(1978, 10, 25), 101L, new Rating(5L)));
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < USERS_PER_THREAD; i++) {
+                User user = userStorage.createUser(new User("u" + thread + "_" + i + "@mail.ru",
+                        "u" + thread + "_" + i, "Name", LocalDate.of(2000, 1, 1)));
+                filmStorage.addLike(film.getId(), user.getId());
+            }
+        });
+
+        assertThat(userStorage.getAllUsers()).hasSize(THREADS * USERS_PER_THREAD);
+        assertThat(userStorage.getAllUsers()).extracting("id").doesNotHaveDuplicates();
+        assertThat(filmStorage.findById(film.getId()).orElseThrow().getUsersLikes())
+                .hasSize(THREADS * USERS_PER_THREAD);
+    }
+
+    @Test
+    public void testConcurrentFriendships() throws Exception {
+        User center = userStorage.createUser(new User("c@mail.ru", "center", "Center", LocalDate.of(2000, 1, 1)));
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < THREADS * USERS_PER_THREAD; i++) {
+            ids.add(userStorage.createUser(new User("f" + i + "@mail.ru", "f" + i, "Friend",
+                    LocalDate.of(2000, 1, 1))).getId());
+        }
+
+        runConcurrently(thread -> {
+            for (int i = thread; i < ids.size(); i += THREADS) {
+                userStorage.setNewFriendship(center.getId(), ids.get(i));
+            }
+        });
+
+        assertThat(userStorage.getFriends(center.getId())).hasSize(ids.size());
+    }
+
+    @Test
+    public void testBulkCreationReservesIdRange() {
+        List<User> batch = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            batch.add(new User("b" + i + "@mail.ru", "b" + i, "Bulk", LocalDate.of(2000, 1, 1)));
+        }
+        userStorage.createUsers(batch);
+        User single = userStorage.createUser(new User("s@mail.ru", "single", "Single", LocalDate.of(2000, 1, 1)));
+
+        assertThat(batch.get(0).getId()).isEqualTo(1L);
+        assertThat(batch.get(batch.size() - 1).getId()).isEqualTo(100_000L);
+        assertThat(single.getId()).isEqualTo(100_001L);
+        assertThat(userStorage.getAllUsers()).hasSize(100_001);
+    }
+
+    @Test
+    public void testPagesFollowIdOrder() {
+        List<FilmRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            requests.add(new FilmRequest("Film " + i, "d", LocalDate.of(2000, 1, 1), 90L, new Rating(1L)));
+        }
+        List<Film> films = filmStorage.addNewFilms(requests);
+        filmStorage.deleteFilm(films.get(4));
+        userStorage.loadUsers(List.of(new User(30L, "c@mail.ru", "c", "C", LocalDate.of(2000, 1, 1)),
+                new User(10L, "a@mail.ru", "a", "A", LocalDate.of(2000, 1, 1)),
+                new User(20L, "b@mail.ru", "b", "B", LocalDate.of(2000, 1, 1))));
+
+        assertThat(filmStorage.getPage(3L, 3)).extracting("id").containsExactly(4L, 6L, 7L);
+        assertThat(filmStorage.getPage(8L, 5)).extracting("id").containsExactly(9L, 10L);
+        assertThat(userStorage.getPage(10L, 5)).extracting("id").containsExactly(20L, 30L);
+    }
+
+    @Test
+    public void testDeletedUserLikesAreNotCounted() {
+        List<User> users = userStorage.createUsers(List.of(
+                new User("a@mail.ru", "a", "A", LocalDate.of(2000, 1, 1)),
+                new User("b@mail.ru", "b", "B", LocalDate.of(2000, 1, 1)),
+                new User("c@mail.ru", "c", "C", LocalDate.of(2000, 1, 1))));
+        List<Film> films = filmStorage.addNewFilms(List.of(
+                new FilmRequest("Liked by two", "d", LocalDate.of(2000, 1, 1), 90L, new Rating(1L)),
+                new FilmRequest("Liked by one", "d", LocalDate.of(2000, 1, 1), 90L, new Rating(1L))));
+        long first = films.get(0).getId();
+        long second = films.get(1).getId();
+        filmStorage.addLike(first, users.get(0).getId());
+        filmStorage.addLike(first, users.get(1).getId());
+        filmStorage.addLike(second, users.get(2).getId());
+        filmStorage.addLike(second, users.get(1).getId());
+        assertThat(filmStorage.getPopular(2)).extracting("id").containsExactly(first, second);
+
+        //Первый фильм теряет оба лайка, второй - один
+        userStorage.deleteUser(users.get(0));
+        userStorage.deleteUser(users.get(1));
+
+        assertThat(filmStorage.getPopular(2)).extracting("id").containsExactly(second, first);
+        assertThat(filmStorage.findById(first).orElseThrow().getUsersLikes()).isEmpty();
+        assertThat(filmStorage.findById(second).orElseThrow().getUsersLikes()).containsExactly(users.get(2).getId());
+        assertThat(filmStorage.getTrending(TrendingWindow.DAY, 2)).extracting("id").containsExactly(second);
+        assertThat(filmStorage.getLikedByUsers(List.of(users.get(1).getId()), 10)).isEmpty();
+    }
+
+    @Test
+    public void testLoadedDataSeedsSequence() {
+        User loaded = new User(500L, "l@mail.ru", "loaded", "Loaded", LocalDate.of(2000, 1, 1));
+        userStorage.loadUsers(List.of(loaded));
+        User created = userStorage.createUser(new User("n@mail.ru", "next", "Next", LocalDate.of(2000, 1, 1)));
+
+        assertThat(created.getId()).isEqualTo(501L);
+        assertThat(userStorage.findById(500L)).contains(loaded);
+    }
+
+    @Test
+    public void testCommonFriendsWithFarApartIds() {
+        //Разность таких id не помещается в int
+        long farId = 3_000_000_000L;
+        User first = new User(1L, "1@mail.ru", "first", "First", LocalDate.of(2000, 1, 1));
+        User second = new User(2L, "2@mail.ru", "second", "Second", LocalDate.of(2000, 1, 1));
+        User near = new User(3L, "3@mail.ru", "near", "Near", LocalDate.of(2000, 1, 1));
+        User far = new User(farId, "far@mail.ru", "far", "Far", LocalDate.of(2000, 1, 1));
+        first.getFriends().addAll(List.of(farId, 3L, 2L));
+        second.getFriends().addAll(List.of(3L, farId));
+        userStorage.loadUsers(List.of(first, second, near, far));
+
+        assertThat(first.getFriends()).containsExactly(2L, 3L, farId);
+        assertThat(userStorage.getCommonFriends(1L, 2L)).extracting("id").containsExactly(3L, farId);
+        userStorage.deleteFriendship(2L, 3L);
+        assertThat(userStorage.getCommonFriends(1L, 2L)).extracting("id").containsExactly(farId);
+    }
+
+    @Test
+    public void testLikesWithFarApartUserIds() {
+        long farId = 3_000_000_000L;
+        userStorage.loadUsers(List.of(new User(1L, "1@mail.ru", "first", "First", LocalDate.of(2000, 1, 1)),
+                new User(farId, "far@mail.ru", "far", "Far", LocalDate.of(2000, 1, 1))));
+        Film film = filmStorage.addNewFilm(new FilmRequest("Halloween", "Classic horror",
+                LocalDate.of(1978, 10, 25), 101L, new Rating(5L)));
+        filmStorage.addLike(film.getId(), farId);
+        filmStorage.addLike(film.getId(), 1L);
+
+        assertThat(filmStorage.findById(film.getId()).orElseThrow().getUsersLikes()).containsExactly(1L, farId);
+        assertThat(filmStorage.findFilmWithLike(film.getId(), farId)).isPresent();
+        assertThat(filmStorage.getLikedByUsers(List.of(farId), 10)).extracting("id").containsExactly(film.getId());
+    }
+
+    @Test
+    public void testConcurrentRegistrationWithSameEmail() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < USERS_PER_THREAD; i++) {
+                try {
+                    userStorage.createUser(new User("same" + i + "@mail.ru", "l" + thread + "_" + i, "Name",
+                            LocalDate.of(2000, 1, 1)));
+                    created.incrementAndGet();
+                } catch (DuplicateDataException e) {
+                    rejected.incrementAndGet();
+                }
+            }
+        });
+
+        assertThat(created.get()).isEqualTo(USERS_PER_THREAD);
+        assertThat(rejected.get()).isEqualTo((THREADS - 1) * USERS_PER_THREAD);
+        assertThat(userStorage.getAllUsers()).hasSize(USERS_PER_THREAD);
+    }
+
+    @Test
+    public void testEmailAndLoginIndexesFollowChanges() {
+        User user = userStorage.createUser(new User("a@mail.ru", "alpha", "A", LocalDate.of(2000, 1, 1)));
+        User other = userStorage.createUser(new User("b@mail.ru", "beta", "B", LocalDate.of(2000, 1, 1)));
+
+        User changes = new User("c@mail.ru", "gamma", null, null);
+        changes.setId(user.getId());
+        userStorage.modifyUser(changes);
+        assertThat(userStorage.findByEmail("a@mail.ru")).isEmpty();
+        assertThat(userStorage.findByLogin("gamma")).hasValueSatisfying(found ->
+                assertThat(found.getId()).isEqualTo(user.getId()));
+
+        User conflict = new User("d@mail.ru", "beta", null, null);
+        conflict.setId(user.getId());
+        assertThatThrownBy(() -> userStorage.modifyUser(conflict)).isInstanceOf(DuplicateDataException.class);
+        //Неудачное изменение не занимает новый e-mail
+        assertThat(userStorage.isUsedEmail("d@mail.ru")).isEqualTo(false);
+
+        userStorage.deleteUser(other);
+        assertThat(userStorage.isUsedLogin("beta")).isEqualTo(false);
+        assertThat(userStorage.findByEmail("b@mail.ru")).isEmpty();
+    }
+
+    private void runConcurrently(IntConsumer task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int number = thread;
+            futures.add(executor.submit(() -> task.accept(number)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Проверяем по плану запроса, что поиск идет по индексу, а не полным перебором таблицы:
+// тогда время поиска не зависит от количества строк
+@JdbcTest
+@AutoConfigureTestDatabase
+@ComponentScan("ru.yandex.practicum.filmorate")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class IndexUsageDbFilmoRateApplicationTests {
+    private final JdbcTemplate jdbc;
+
+    private String explain(String query, Object... params) {
+        return jdbc.queryForObject("EXPLAIN " + query, String.class, params).toUpperCase();
+    }
+
+    @Test
+    public void testFindFilmWithLikeUsesIndex() {
+        assertThat(explain("SELECT * FROM likes WHERE film_id = ? AND user_id = ?", 3L, 1L))
+                .contains("LIKES_FILM_USER_UQ");
+    }
+
+    @Test
+    public void testRecentLikesLookupUsesIndex() {
+        assertThat(explain("SELECT film_id, created_at FROM likes WHERE created_at >= ?",
+                OffsetDateTime.now(ZoneOffset.UTC).minusDays(7)))
+                .contains("LIKES_CREATED_AT_IDX");
+    }
+
+    @Test
+    public void testFriendsLookupsUseIndex() {
+        assertThat(explain("SELECT * FROM friends WHERE user1_id = ? AND user2_id = ?", 2L, 3L))
+                .contains("FRIENDS_USER1_USER2_UQ");
+        assertThat(explain("SELECT user2_id FROM friends f WHERE user1_id = ?", 2L))
+                .contains("FRIENDS_USER1_USER2_UQ");
+    }
+
+    @Test
+    public void testFilmGenreLookupUsesIndex() {
+        assertThat(explain("SELECT * FROM film_genre WHERE film_id = ?", 3L))
+                .contains("FILM_GENRE_FILM_GENRE_UQ");
+    }
+
+    @Test
+    public void testFindByNameUsesIndex() {
+        assertThat(explain("SELECT * FROM users WHERE email = ?", "a@rr.com")).contains("USERS_EMAIL_UQ");
+        assertThat(explain("SELECT * FROM users WHERE login = ?", "log1")).contains("USERS_LOGIN_UQ");
+        assertThat(explain("SELECT * FROM genre WHERE name = ?", "Horror")).contains("GENRE_NAME_UQ");
+        assertThat(explain("SELECT * FROM rating WHERE name = ?", "PG")).contains("RATING_NAME_UQ");
+        assertThat(explain("SELECT * FROM film WHERE name = ?", "A1")).contains("FILM_NAME_IDX");
+    }
+
+    @Test
+    public void testPagesStartWithIndexSeek() {
+        assertThat(explain("SELECT * FROM film WHERE id > ? ORDER BY id LIMIT ?", 5L, 10))
+                .contains("PRIMARY_KEY")
+                .contains("ID > ?1")
+                .contains("INDEX SORTED");
+        assertThat(explain("SELECT u.* FROM friends f JOIN users u ON u.id = f.user2_id " +
+                "WHERE f.user1_id = ? AND f.user2_id > ? ORDER BY f.user1_id, f.user2_id LIMIT ?", 1L, 2L, 10))
+                .contains("FRIENDS_USER1_USER2_UQ")
+                .contains("INDEX SORTED");
+    }
+
+    @Test
+    public void testDuplicatesAreRejected() {
+        assertThatThrownBy(() -> jdbc.update("INSERT INTO likes (film_id, user_id) VALUES (3, 1)"))
+                .isInstanceOf(DuplicateKeyException.class);
+        assertThatThrownBy(() -> jdbc.update("INSERT INTO friends (user1_id, user2_id) VALUES (2, 3)"))
+                .isInstanceOf(DuplicateKeyException.class);
+        assertThatThrownBy(() -> jdbc.update("INSERT INTO users (email, login, name) VALUES ('a@rr.com', 'new', 'N')"))
+                .isInstanceOf(DuplicateKeyException.class);
+        assertThatThrownBy(() -> jdbc.update("INSERT INTO genre (name) VALUES ('Horror')"))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+}
@@ -0,0 +1,167 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.InternalServerException;
+import ru.yandex.practicum.filmorate.storage.SortedAdjacency;
+import ru.yandex.practicum.filmorate.storage.film.LikeIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LikeIndexTests {
+
+    @Test
+    public void testRecommendFilmsOfMostSimilarUsers() {
+        LikeIndex index = new LikeIndex();
+        //Пользователь 2 совпадает с 1 по двум фильмам из трех, пользователь 3 - по одному из пяти
+        index.add(1L, 1L);
+        index.add(2L, 1L);
+        index.add(1L, 2L);
+        index.add(2L, 2L);
+        index.add(10L, 2L);
+        index.add(1L, 3L);
+        index.add(11L, 3L);
+        index.add(12L, 3L);
+        index.add(13L, 3L);
+
+        assertThat(index.recommend(1L, 10)).containsExactly(10L, 11L, 12L, 13L);
+        assertThat(index.recommend(1L, 2)).containsExactly(10L, 11L);
+        assertThat(index.recommend(4L, 10)).isEmpty();
+    }
+
+    @Test
+    public void testIndexFollowsChanges() {
+        LikeIndex index = new LikeIndex();
+        //Пользователь 1 лайкнул фильмы 1 и 2, пользователь 2 - фильмы 2 и 3
+        index.add(1L, 1L);
+        index.add(2L, 1L);
+        index.add(2L, 2L);
+        index.add(3L, 2L);
+        assertThat(index.recommend(1L, 10)).containsExactly(3L);
+
+        index.remove(2L, 1L);
+        assertThat(index.recommend(1L, 10)).isEmpty();
+        index.add(2L, 1L);
+        index.removeUser(2L);
+        assertThat(index.usersOf(3L)).isEmpty();
+        assertThat(index.recommend(1L, 10)).isEmpty();
+        index.add(3L, 1L);
+        index.removeFilm(3L);
+        assertThat(index.filmsOf(1L)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    public void testMembershipAndCount() {
+        LikeIndex index = new LikeIndex();
+        for (long userId = 1; userId <= 10_000; userId++) {
+            index.add(1L, userId);
+        }
+        index.add(2L, LikeIndex.MAX_ID);
+        index.remove(1L, 5L);
+
+        assertThat(index.likeCount(1L)).isEqualTo(9_999L);
+        assertThat(index.isLiked(1L, 4L)).isTrue();
+        assertThat(index.isLiked(1L, 5L)).isFalse();
+        assertThat(index.isLiked(1L, -1L)).isFalse();
+        assertThat(index.usersOf(2L)).containsExactly(LikeIndex.MAX_ID);
+        assertThat(index.likeCount(3L)).isZero();
+        assertThatThrownBy(() -> index.add(3L, LikeIndex.MAX_ID + 1)).isInstanceOf(InternalServerException.class);
+    }
+
+    @Test
+    public void testLikedByAnyRankedByLikers() {
+        LikeIndex index = new LikeIndex();
+        index.add(5L, 1L);
+        index.add(5L, 2L);
+        index.add(5L, 3L);
+        index.add(7L, 2L);
+        index.add(7L, 3L);
+        index.add(6L, 1L);
+        index.add(8L, 4L);
+
+        assertThat(index.likedByAny(List.of(1L, 2L, 3L), 10)).containsExactly(5L, 7L, 6L);
+        assertThat(index.likedByAny(List.of(1L, 2L, 3L), 2)).containsExactly(5L, 7L);
+        assertThat(index.likedByAny(List.of(9L), 10)).isEmpty();
+    }
+
+    @Test
+    public void testRecommendUsesOnlyClosestNeighbours() {
+        //50 пользователей совпадают с первым на 2/3, еще 60 - на 1/3 и все вместе лайкнули фильм 500
+        SortedAdjacency.Edges likes = new SortedAdjacency.Edges();
+        likes.add(1L, 1L);
+        likes.add(1L, 2L);
+        for (long userId = 2; userId <= 51; userId++) {
+            likes.add(userId, 1L);
+            likes.add(userId, 2L);
+            likes.add(userId, 100L + userId);
+        }
+        for (long userId = 52; userId <= 111; userId++) {
+            likes.add(userId, 1L);
+            likes.add(userId, 500L);
+        }
+        LikeIndex index = new LikeIndex();
+        index.load(likes);
+
+        assertThat(index.recommend(1L, 100)).hasSize(50).doesNotContain(500L)
+                .startsWith(102L, 103L);
+    }
+
+    @Test
+    public void testRecommendOverLargeIndex() {
+        //100 000 пользователей по 20 лайков среди 10 000 фильмов
+        Random random = new Random(7);
+        SortedAdjacency.Edges likes = new SortedAdjacency.Edges();
+        for (long userId = 1; userId <= 100_000; userId++) {
+            for (int i = 0; i < 20; i++) {
+                likes.add(userId, random.nextInt(10_000));
+            }
+        }
+        LikeIndex index = new LikeIndex();
+        index.load(likes);
+
+        long[] liked = index.filmsOf(1L);
+        assertThat(index.recommend(1L, 10)).hasSize(10)
+                .allSatisfy(filmId -> assertThat(liked).doesNotContain(filmId));
+    }
+
+    @Test
+    public void testConcurrentLikesAndReads() throws Exception {
+        LikeIndex index = new LikeIndex();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            long first = thread * 100L + 1;
+            futures.add(executor.submit(() -> {
+                //Каждый поток лайкает фильмы 1-20 своими 100 пользователями, затем снимает лайки с четных фильмов
+                for (long userId = first; userId < first + 100; userId++) {
+                    for (long filmId = 1; filmId <= 20; filmId++) {
+                        index.add(filmId, userId);
+                    }
+                    index.recommend(userId, 5);
+                    assertThat(index.filmsOf(userId)).hasSize(20);
+                }
+                for (long userId = first; userId < first + 100; userId++) {
+                    for (long filmId = 2; filmId <= 20; filmId += 2) {
+                        index.remove(filmId, userId);
+                    }
+                    index.likedByAny(List.of(userId, first), 5);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertThat(index.likeCount(1L)).isEqualTo(800L);
+        assertThat(index.likeCount(2L)).isEqualTo(0L);
+        assertThat(index.usersOf(3L)).hasSize(800);
+    }
+}
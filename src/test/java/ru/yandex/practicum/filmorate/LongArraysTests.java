@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.LongArrays;
+
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LongArraysTests {
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void testIntersectArraysOfCloseSize() {
+        assertThat(LongArrays.intersect(new long[]{1, 3, 5, 7}, new long[]{2, 3, 4, 7, 9})).containsExactly(3L, 7L);
+        assertThat(LongArrays.intersect(new long[]{1, 2}, new long[]{3, 4})).isEmpty();
+        assertThat(LongArrays.intersect(new long[0], new long[]{1})).isEmpty();
+        for (int i = 0; i < 100; i++) {
+            checkAgainstNaive(randomIds(500, 2000), randomIds(700, 2000));
+        }
+    }
+
+    @Test
+    public void testIntersectSmallWithLargeArray() {
+        long[] large = LongStream.rangeClosed(1, 100_000).map(id -> id * 3).toArray();
+        assertThat(LongArrays.intersect(new long[]{2, 3, 300_000, 300_003}, large)).containsExactly(3L, 300_000L);
+        assertThat(LongArrays.intersect(large, new long[]{-1, 1, 299_999})).isEmpty();
+        for (int i = 0; i < 100; i++) {
+            checkAgainstNaive(randomIds(random.nextInt(1, 50), 1_000_000), randomIds(50_000, 1_000_000));
+        }
+    }
+
+    private void checkAgainstNaive(long[] a, long[] b) {
+        long[] expected = LongStream.of(a).filter(value -> LongStream.of(b).anyMatch(other -> other == value))
+                .toArray();
+        assertThat(LongArrays.intersect(a, b)).containsExactly(expected);
+        assertThat(LongArrays.intersect(b, a)).containsExactly(expected);
+    }
+
+    private long[] randomIds(int count, long bound) {
+        return random.longs(count, 0, bound).sorted().distinct().toArray();
+    }
+}
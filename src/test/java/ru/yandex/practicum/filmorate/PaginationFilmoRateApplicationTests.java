@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.ComponentScan;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.Page;
+import ru.yandex.practicum.filmorate.dto.UserDto;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@ComponentScan("ru.yandex.practicum.filmorate")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class PaginationFilmoRateApplicationTests {
+
+    private final FilmService filmService;
+    private final UserService userService;
+
+    @Test
+    public void testFilmPagesCoverWholeList() {
+        List<FilmDto> collected = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            Page<FilmDto> page = filmService.getFilmsPage(cursor, 4);
+            assertThat(page.getItems()).hasSizeLessThanOrEqualTo(4);
+            collected.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(collected).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(filmService.getAll());
+    }
+
+    @Test
+    public void testLastPageHasNoCursor() {
+        Page<UserDto> page = userService.getUsersPage(null, 8);
+        assertThat(page.getItems()).hasSize(8);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    public void testFriendsPage() {
+        Page<UserDto> first = userService.getFriendsPage(1L, null, 1);
+        assertThat(first.getItems()).extracting("id").containsExactly(2L);
+        Page<UserDto> second = userService.getFriendsPage(1L, first.getNextCursor(), 1);
+        assertThat(second.getItems()).extracting("id").containsExactly(3L);
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    public void testWrongCursor() {
+        assertThatThrownBy(() -> userService.getUsersPage("not-a-cursor", 10))
+                .isInstanceOf(ValidationException.class);
+    }
+}
@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Реальные эндпоинты через MockMvc: с fail-on-exceed=true запрос сверх порога завершается исключением
+// из QueryGuardFilter, которое MockMvc пробрасывает в тест
+@SpringBootTest(properties = {
+        "filmorate.query-guard.fail-on-exceed=true",
+        "filmorate.query-guard.max-queries=4",
+        "filmorate.query-guard.max-db-time=1m"})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class QueryGuardEndpointsFilmoRateApplicationTests {
+    private final MockMvc mockMvc;
+
+    // Больше всех запросов у /users/{id}/friends/films: пользователь, его друзья, их фильмы и жанры фильмов
+    private static final List<String> ENDPOINTS = List.of("/films", "/films/1", "/films/popular",
+            "/films/trending", "/genres", "/genres/1", "/mpa", "/mpa/1", "/users", "/users/1/friends",
+            "/users/1/friends/common/2", "/users/5/friends/suggestions", "/users/1/friends/films",
+            "/users/1/recommendations");
+
+    @Test
+    public void testEndpointsStayWithinQueryLimit() throws Exception {
+        for (String uri : ENDPOINTS) {
+            mockMvc.perform(get(uri)).andExpect(status().isOk());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate;
+
+import jakarta.servlet.FilterChain;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.yandex.practicum.filmorate.dal.FilmDbStorage;
+import ru.yandex.practicum.filmorate.dal.QueryStats;
+import ru.yandex.practicum.filmorate.dal.UserDbStorage;
+import ru.yandex.practicum.filmorate.filter.QueryGuardFilter;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Запросы к базе считаются за HTTP-запрос, в режиме тестов превышение порога роняет запрос
+@JdbcTest
+@AutoConfigureTestDatabase
+@ComponentScan("ru.yandex.practicum.filmorate")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class QueryGuardFilmoRateApplicationTests {
+    private final FilmDbStorage filmStorage;
+    private final UserDbStorage userStorage;
+
+    private static final Duration NO_TIME_LIMIT = Duration.ofMinutes(1);
+
+    private static void perform(QueryGuardFilter filter, String uri, FilterChain chain) throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", uri), new MockHttpServletResponse(), chain);
+    }
+
+    @Test
+    public void testQueriesAreCountedByName() {
+        try (QueryStats stats = QueryStats.open()) {
+            filmStorage.findById(1L);
+            filmStorage.findById(2L);
+            userStorage.findById(1L);
+
+            assertThat(stats.getCount()).isEqualTo(3);
+            assertThat(stats.getNanos()).isPositive();
+            assertThat(stats.getQueries())
+                    .containsEntry("UserDbStorage.FIND_BY_ID_QUERY", 1)
+                    .containsEntry("FilmDbStorage.FIND_BY_ID_QUERY", 2);
+            assertThat(stats.describe()).startsWith("FilmDbStorage.FIND_BY_ID_QUERY x2");
+        }
+    }
+
+    @Test
+    public void testNestedStatsCountIntoOuter() {
+        try (QueryStats outer = QueryStats.open()) {
+            userStorage.findById(1L);
+            try (QueryStats inner = QueryStats.open()) {
+                userStorage.findById(2L);
+                assertThat(inner.getCount()).isEqualTo(1);
+            }
+            userStorage.findById(3L);
+            assertThat(outer.getCount()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    public void testRequestOverQueryLimitFails() {
+        QueryGuardFilter filter = new QueryGuardFilter(2, NO_TIME_LIMIT, true);
+
+        assertThatThrownBy(() -> perform(filter, "/films/1", (req, res) -> {
+            filmStorage.findById(1L);
+            filmStorage.findById(1L);
+            filmStorage.findById(1L);
+        }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("GET /films/1")
+                .hasMessageContaining("FilmDbStorage.FIND_BY_ID_QUERY x3");
+    }
+
+    @Test
+    public void testRequestOverQueryLimitIsOnlyLoggedByDefault() {
+        QueryGuardFilter filter = new QueryGuardFilter(0, NO_TIME_LIMIT, false);
+
+        assertThatCode(() -> perform(filter, "/films/1", (req, res) -> filmStorage.findById(1L)))
+                .doesNotThrowAnyException();
+    }
+}
@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.dal.FilmDbStorage;
+import ru.yandex.practicum.filmorate.dal.FilmGenreDbStorage;
+import ru.yandex.practicum.filmorate.dal.QueryMetrics;
+import ru.yandex.practicum.filmorate.dal.UserDbStorage;
+import ru.yandex.practicum.filmorate.dto.FilmRequest;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Запросы к базе замеряются таймерами с именами констант запросов
+@JdbcTest
+@AutoConfigureTestDatabase
+@ComponentScan("ru.yandex.practicum.filmorate")
+@Import(SimpleMeterRegistry.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class QueryMetricsFilmoRateApplicationTests {
+    private final MeterRegistry registry;
+    private final FilmDbStorage filmStorage;
+    private final UserDbStorage userStorage;
+    private final FilmGenreDbStorage filmGenreStorage;
+
+    private long count(String repository, String query) {
+        Timer timer = registry.find(QueryMetrics.TIMER_NAME)
+                .tag("repository", repository)
+                .tag("query", query)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    @Test
+    public void testQueriesAreTimedByConstantName() {
+        long popular = count("FilmDbStorage", "GET_POPULAR_FILMS_QUERY");
+        long filmById = count("FilmDbStorage", "FIND_BY_ID_QUERY");
+        long userById = count("UserDbStorage", "FIND_BY_ID_QUERY");
+
+        filmStorage.getPopular(10);
+        filmStorage.findById(1L);
+        filmStorage.findById(2L);
+        userStorage.findById(1L);
+
+        assertThat(count("FilmDbStorage", "GET_POPULAR_FILMS_QUERY")).isEqualTo(popular + 1);
+        assertThat(count("FilmDbStorage", "FIND_BY_ID_QUERY")).isEqualTo(filmById + 2);
+        assertThat(count("UserDbStorage", "FIND_BY_ID_QUERY")).isEqualTo(userById + 1);
+    }
+
+    @Test
+    public void testFormattedQueriesAreTimedByTemplate() {
+        long usedEmails = count("UserDbStorage", "FIND_USED_EMAILS_QUERY");
+
+        userStorage.findUsedEmails(List.of("a@rr.com", "none@rr.com"));
+
+        assertThat(count("UserDbStorage", "FIND_USED_EMAILS_QUERY")).isEqualTo(usedEmails + 1);
+        assertThat(registry.find(QueryMetrics.TIMER_NAME).tag("query", "other").timer().count()).isZero();
+    }
+
+    @Test
+    public void testGenresOfNewFilmsAreTimedInFilmGenreStorage() {
+        //Пакетная загрузка фильмов пишет жанры через FilmGenreDbStorage
+        long filmGenreInserts = count("FilmGenreDbStorage", "INSERT_FILM_GENRES_QUERY");
+
+        FilmRequest request = new FilmRequest("Batch", "d", LocalDate.of(2000, 1, 1), 90L, new Rating(1L));
+        request.setGenres(List.of(new Genre(1L), new Genre(2L)));
+        filmStorage.addNewFilms(List.of(request));
+        filmGenreStorage.addFilmGenres(5L, List.of(1L));
+
+        assertThat(count("FilmGenreDbStorage", "INSERT_FILM_GENRES_QUERY")).isEqualTo(filmGenreInserts + 2);
+        assertThat(count("FilmDbStorage", "INSERT_FILM_GENRES_QUERY")).isZero();
+    }
+}
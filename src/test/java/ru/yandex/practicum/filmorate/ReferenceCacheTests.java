@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.ReferenceCache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReferenceCacheTests {
+
+    @Test
+    public void testReloadAfterWriteIsPublishedLast() throws Exception {
+        List<String> table = new CopyOnWriteArrayList<>(List.of("a"));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean first = new AtomicBoolean(true);
+        //Первое перечитывание прочитало таблицу до записи и задерживается с публикацией
+        ReferenceCache<String> cache = new ReferenceCache<>("test", () -> {
+            List<String> loaded = List.copyOf(table);
+            if (first.compareAndSet(true, false)) {
+                loading.countDown();
+                awaitQuietly(release);
+            }
+            return loaded;
+        }, value -> (long) value.length(), Function.identity());
+
+        Thread stale = new Thread(cache::reload);
+        stale.start();
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        table.add("bb");
+        Thread fresh = new Thread(cache::reload);
+        fresh.start();
+        //Перечитывание после записи ждет, пока опубликуется начатое раньше
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (fresh.getState() != Thread.State.BLOCKED && fresh.isAlive() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        stale.join();
+        fresh.join();
+
+        assertThat(cache.getAll()).containsExactly("a", "bb");
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate;
+
+import jakarta.servlet.ServletRequest;
+import org.junit.jupiter.api.Test;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.attributes.HttpAttributes;
+import ru.yandex.practicum.filmorate.filter.SampledBodyStrategy;
+
+import java.io.IOException;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+// Тела запросов и ответов пишутся в журнал только у выбранной доли запросов,
+// у остальных logbook их и не буферизует
+public class SampledBodyStrategyTests {
+
+    //Запрос logbook поверх запроса сервлета, как RemoteRequest из logbook-servlet
+    private static HttpRequest servletRequest() throws IOException {
+        HttpRequest request = mock(HttpRequest.class, withSettings().extraInterfaces(ServletRequest.class));
+        when(request.withBody()).thenReturn(request);
+        when(request.withoutBody()).thenReturn(request);
+        return request;
+    }
+
+    //Запрос, который logbook передает обработке ответа: с атрибутами, полученными от extract
+    private static HttpRequest processedRequest(SampledBodyStrategy strategy, HttpRequest request) {
+        HttpAttributes attributes = strategy.extract(request);
+        HttpRequest processed = mock(HttpRequest.class);
+        when(processed.getAttributes()).thenReturn(attributes);
+        return processed;
+    }
+
+    @Test
+    public void testBodiesAreDroppedWhenNotSampled() throws IOException {
+        SampledBodyStrategy strategy = new SampledBodyStrategy(0);
+        HttpRequest request = servletRequest();
+        HttpResponse response = mock(HttpResponse.class);
+
+        strategy.process(request);
+        verify(request).withoutBody();
+        verify(request, never()).withBody();
+        verify((ServletRequest) request).setAttribute(SampledBodyStrategy.SAMPLED_ATTRIBUTE, false);
+
+        when(((ServletRequest) request).getAttribute(SampledBodyStrategy.SAMPLED_ATTRIBUTE)).thenReturn(false);
+        strategy.process(processedRequest(strategy, request), response);
+        verify(response).withoutBody();
+        verify(response, never()).withBody();
+    }
+
+    @Test
+    public void testBodiesAreKeptWhenSampled() throws IOException {
+        SampledBodyStrategy strategy = new SampledBodyStrategy(1);
+        HttpRequest request = servletRequest();
+        HttpResponse response = mock(HttpResponse.class);
+
+        strategy.process(request);
+        verify(request).withBody();
+        verify(request, never()).withoutBody();
+        verify((ServletRequest) request).setAttribute(SampledBodyStrategy.SAMPLED_ATTRIBUTE, true);
+
+        when(((ServletRequest) request).getAttribute(SampledBodyStrategy.SAMPLED_ATTRIBUTE)).thenReturn(true);
+        strategy.process(processedRequest(strategy, request), response);
+        verify(response).withBody();
+        verify(response, never()).withoutBody();
+    }
+}
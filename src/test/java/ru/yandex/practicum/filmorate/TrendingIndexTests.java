@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.storage.film.TrendingIndex;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TrendingIndexTests {
+
+    private static final Instant START = Instant.parse("2024-05-01T12:30:00Z");
+
+    @Test
+    public void testTopCountsOnlyLikesInsideWindow() {
+        TestClock clock = new TestClock(START);
+        TrendingIndex index = new TrendingIndex(clock);
+        //Фильм 1 - три лайка двое суток назад, фильм 2 - два лайка в текущем часу, фильм 3 - один час назад
+        index.add(1L, START.minus(Duration.ofHours(48)));
+        index.add(1L, START.minus(Duration.ofHours(48)));
+        index.add(1L, START.minus(Duration.ofHours(47)));
+        index.add(2L, START);
+        index.add(2L, START.minusSeconds(60));
+        index.add(3L, START.minus(Duration.ofHours(1)));
+
+        assertThat(index.top(TrendingWindow.DAY, 10)).containsExactly(2L, 3L);
+        assertThat(index.top(TrendingWindow.WEEK, 10)).containsExactly(1L, 2L, 3L);
+        assertThat(index.top(TrendingWindow.WEEK, 2)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    public void testWindowsSlideWithTime() {
+        TestClock clock = new TestClock(START);
+        TrendingIndex index = new TrendingIndex(clock);
+        index.add(1L, START);
+        index.add(2L, START.minus(Duration.ofHours(23)));
+
+        //Через час лайк фильма 2 выходит из суточного окна, но остается в недельном
+        clock.advance(Duration.ofHours(1));
+        assertThat(index.top(TrendingWindow.DAY, 10)).containsExactly(1L);
+        assertThat(index.top(TrendingWindow.WEEK, 10)).containsExactly(1L, 2L);
+
+        //Через неделю выходят оба, а новый лайк ложится в освободившуюся ячейку кольца
+        clock.advance(Duration.ofDays(7));
+        assertThat(index.top(TrendingWindow.WEEK, 10)).isEmpty();
+        index.add(2L, clock.instant());
+        assertThat(index.top(TrendingWindow.DAY, 10)).containsExactly(2L);
+    }
+
+    @Test
+    public void testRemoveAndOldLikes() {
+        TestClock clock = new TestClock(START);
+        TrendingIndex index = new TrendingIndex(clock);
+        index.add(1L, START);
+        index.add(2L, START);
+        index.add(2L, START.minus(Duration.ofHours(2)));
+        index.remove(2L, START);
+        index.remove(2L, START.minus(Duration.ofHours(2)));
+        //Лайки старше недели в счетчики не попадают, удаление неизвестного лайка ничего не меняет
+        index.add(3L, START.minus(Duration.ofDays(8)));
+        index.remove(4L, START);
+
+        assertThat(index.top(TrendingWindow.WEEK, 10)).containsExactly(1L);
+        index.removeFilm(1L);
+        assertThat(index.top(TrendingWindow.WEEK, 10)).isEmpty();
+        assertThat(index.windowStart()).isEqualTo(Instant.parse("2024-04-24T13:00:00Z"));
+    }
+
+    @Test
+    public void testWindowFromName() {
+        assertThat(TrendingWindow.from("24h")).isEqualTo(TrendingWindow.DAY);
+        assertThat(TrendingWindow.from("7d")).isEqualTo(TrendingWindow.WEEK);
+        assertThatThrownBy(() -> TrendingWindow.from("1y")).isInstanceOf(ValidationException.class);
+    }
+
+    //Часы, которые тест переводит вручную
+    private static class TestClock extends Clock {
+        private Instant now;
+
+        TestClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -4,16 +4,26 @@ import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.dal.FilmDbStorage;
 import ru.yandex.practicum.filmorate.dal.UserDbStorage;
+import ru.yandex.practicum.filmorate.dto.UserRequest;
+import ru.yandex.practicum.filmorate.exception.DuplicateDataException;
 import ru.yandex.practicum.filmorate.exception.InternalServerException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +33,8 @@ import java.util.Optional;
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 class UserDbFilmoRateApplicationTests {
     private final UserDbStorage userStorage;
+    private final FilmDbStorage filmStorage;
+    private final UserService userService;
 
     private final User standartUser1 = new User("first@error.com", "firstLogin", "NameTest1",
             LocalDate.of(2000, 10, 10));
@@ -82,6 +94,21 @@ class UserDbFilmoRateApplicationTests {
         assertThat(createdUser).hasFieldOrPropertyWithValue("birthday", user.getBirthday());
     }
 
+    @Test
+    public void testDuplicateEmailAndLoginAreRejectedByStorage() {
+        //Запись в обход проверок UserService - так же выглядит запрос, проигравший гонку
+        User sameEmail = new User("a@rr.com", "newLogin", "Name", LocalDate.of(2000, 1, 1));
+        assertThatThrownBy(() -> userStorage.createUser(sameEmail))
+                .isInstanceOf(DuplicateDataException.class)
+                .hasMessage("Email a@rr.com is already used.");
+
+        User sameLogin = new User("new@mail.com", "beta", "Name", LocalDate.of(2000, 1, 1));
+        sameLogin.setId(3L);
+        assertThatThrownBy(() -> userStorage.modifyUser(sameLogin))
+                .isInstanceOf(DuplicateDataException.class)
+                .hasMessage("Login beta is already used.");
+    }
+
     @Test
     public void testModifyUser() {
         User testUser = standartUser2;
@@ -95,6 +122,21 @@ class UserDbFilmoRateApplicationTests {
         assertThat(user).hasFieldOrPropertyWithValue("birthday", testUser.getBirthday());
     }
 
+    @Test
+    public void testChangeUserWithLargeIdKeepingEmailAndLogin() {
+        //Id больше 127: Long с таким значением не берется из кэша, и сравнение через != не работает
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 130; i++) {
+            users.add(new User("large" + i + "@mail.ru", "large" + i, "Large", LocalDate.of(2000, 1, 1)));
+        }
+        User user = userStorage.createUsers(users).getLast();
+        assertThat(user.getId()).isGreaterThan(127L);
+
+        UserRequest request = new UserRequest(user.getEmail(), user.getLogin(), "Renamed", user.getBirthday());
+        request.setId(user.getId());
+        assertThat(userService.changeUsersData(request)).hasFieldOrPropertyWithValue("name", "Renamed");
+    }
+
     @Test
     public void testDeleteUser() {
         User user = userStorage.findById(8L).orElseThrow(() -> new InternalServerException("user not found"));
@@ -103,6 +145,16 @@ class UserDbFilmoRateApplicationTests {
         assertThat(testUser == null).isEqualTo(true);
     }
 
+    @Test
+    public void testDeleteUserDecrementsLikeCount() {
+        //Пользователь 4 лайкнул фильмы 3, 4 и 7
+        User user = userStorage.findById(4L).orElseThrow(() -> new InternalServerException("user not found"));
+        userStorage.deleteUser(user);
+        List<Film> films = filmStorage.getPopular(3L);
+        assertThat(films).extracting("id").containsExactly(3L, 7L, 2L);
+        assertThat(films).extracting("count").containsExactly(3, 3, 2);
+    }
+
     @Test
     public void testGetAllUsers() {
         User user = userStorage.findById(3L).orElseThrow(() -> new InternalServerException("user not found"));
@@ -141,6 +193,22 @@ class UserDbFilmoRateApplicationTests {
         assertThat(users).contains(user);
     }
 
+    @Test
+    public void testSetDuplicateFriendship() {
+        assertThatThrownBy(() -> userStorage.setNewFriendship(2L, 3L))
+                .isInstanceOf(DuplicateDataException.class);
+    }
+
+    @Test
+    public void testSetFriendshipWithMissingUser() {
+        assertThatThrownBy(() -> userStorage.setNewFriendship(999L, 3L))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("User id = 999");
+        assertThatThrownBy(() -> userStorage.setNewFriendship(3L, 999L))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("User id = 999");
+    }
+
     @Test
     public void testDeleteFriendship() {
         User user = userStorage.findById(4L)
@@ -169,6 +237,29 @@ class UserDbFilmoRateApplicationTests {
         assertThat(users.isEmpty()).isEqualTo(true);
     }
 
+    //Граф дружбы меняется только после фиксации, поэтому тест работает без транзакции и удаляет свои данные сам
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testGetCommonFriendsInSeveralChunks() {
+        //Общих друзей больше, чем id помещается в один список IN (...)
+        List<User> created = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            created.add(new User("common" + i + "@mail.ru", "common" + i, "Common", LocalDate.of(2000, 1, 1)));
+        }
+        List<User> users = userStorage.createUsers(created);
+        try {
+            users.forEach(user -> {
+                userStorage.setNewFriendship(2L, user.getId());
+                userStorage.setNewFriendship(7L, user.getId());
+            });
+
+            assertThat(userStorage.getCommonFriends(2L, 7L)).extracting("id")
+                    .containsExactlyElementsOf(users.stream().map(User::getId).toList());
+        } finally {
+            users.forEach(userStorage::deleteUser);
+        }
+    }
+
     @Test
     public void testIsFriendPairExist() {
         boolean isExists = userStorage.isFriendPairExist(5L, 6L);
@@ -177,4 +268,19 @@ class UserDbFilmoRateApplicationTests {
         assertThat(isExists).isEqualTo(true);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testGetFriendSuggestions() {
+        //У пользователя 5 друзья 2 и 4, и у обоих в друзьях 3
+        assertThat(userStorage.getFriendSuggestions(5L, 10)).extracting("id").containsExactly(3L);
+        assertThat(userStorage.getFriendSuggestions(4L, 10)).extracting("id").containsExactly(2L);
+        assertThat(userStorage.getFriendSuggestions(1L, 10)).isEmpty();
+    }
+
+    @Test
+    public void testFriendGraphChangesOnlyAfterCommit() {
+        //Тест выполняется в транзакции, которая будет отменена, поэтому граф дружбы не меняется
+        userStorage.setNewFriendship(6L, 4L);
+        assertThat(userStorage.getFriendSuggestions(6L, 10)).extracting("id").containsExactly(3L);
+    }
+
+}
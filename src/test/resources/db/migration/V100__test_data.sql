@@ -1,3 +1,4 @@
+-- Тестовые данные, накатываются после всех миграций основной схемы
 INSERT INTO genre (name, description)
           VALUES
               ('Horror', 'Ужасы'),
@@ -70,4 +71,6 @@ INSERT INTO film_genre (film_id, genre_id)
               (7, 3),
               (7, 4),
               (7, 6),
-              (3, 6);
\ No newline at end of file
+              (3, 6);
+
+UPDATE film f SET like_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id);